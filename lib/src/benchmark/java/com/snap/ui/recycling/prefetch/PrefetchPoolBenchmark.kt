@@ -0,0 +1,74 @@
+package com.snap.ui.recycling.prefetch
+
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import kotlin.concurrent.thread
+
+/**
+ * Compares the time the consumer thread spends taking items from [PrefetchPool] and [ConcurrentPrefetchPool] while
+ * producer threads keep offering. Benchmarks are only compiled with the benchmark property, for instance:
+ *
+ *     ./gradlew :lib:testDebugUnitTest -Pbenchmark --tests '*PrefetchPoolBenchmark*' -i
+ */
+class PrefetchPoolBenchmark {
+
+    private interface Pool {
+        fun offer(typeId: Int, item: Any): Boolean
+        fun take(typeId: Int): Any?
+    }
+
+    @Test
+    fun takeUnderContention() {
+        for (producers in intArrayOf(1, 2, 4, 8)) {
+            // The first round of each warms up the JIT.
+            repeat(2) {
+                val locked = PrefetchPool<Int, Any>(POOL_SIZE, Long.MAX_VALUE)
+                val lockedNanos = measure(producers, object : Pool {
+                    override fun offer(typeId: Int, item: Any) = locked.add(typeId, item, 1)
+                    override fun take(typeId: Int) = locked.take(typeId)
+                })
+                val lockFree = ConcurrentPrefetchPool<Any>(TYPE_COUNT, POOL_SIZE, Long.MAX_VALUE)
+                val lockFreeNanos = measure(producers, object : Pool {
+                    override fun offer(typeId: Int, item: Any) = lockFree.offer(typeId, item, 1)
+                    override fun take(typeId: Int) = lockFree.take(typeId)
+                })
+                println("producers=$producers take ns/op: PrefetchPool=$lockedNanos " +
+                        "ConcurrentPrefetchPool=$lockFreeNanos")
+            }
+        }
+    }
+
+    private fun measure(producers: Int, pool: Pool): Long {
+        val running = AtomicBoolean(true)
+        val started = CountDownLatch(producers)
+        val item = Any()
+        val threads = List(producers) { producer ->
+            thread {
+                started.countDown()
+                var i = producer
+                while (running.get()) {
+                    pool.offer(i++ % TYPE_COUNT, item)
+                }
+            }
+        }
+        started.await()
+
+        val start = System.nanoTime()
+        for (i in 0 until TAKES) {
+            pool.take(i % TYPE_COUNT)
+        }
+        val elapsed = System.nanoTime() - start
+
+        running.set(false)
+        threads.forEach { it.join(TimeUnit.SECONDS.toMillis(1)) }
+        return elapsed / TAKES
+    }
+
+    companion object {
+        private const val TYPE_COUNT = 8
+        private const val POOL_SIZE = 16
+        private const val TAKES = 2_000_000
+    }
+}
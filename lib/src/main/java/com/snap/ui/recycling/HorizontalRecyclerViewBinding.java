@@ -1,28 +1,52 @@
 package com.snap.ui.recycling;
 
 import com.snap.ui.recycling.adapter.BindingViewModelAdapter;
-import com.snap.ui.seeking.Seekables;
+import com.snap.ui.recycling.factory.ViewFactory;
+import com.snap.ui.seeking.ListSeekable;
+import com.snap.ui.recycling.viewmodel.AdapterViewModel;
 import com.snap.ui.recycling.viewmodel.HorizontalScrollerModel;
 
 import android.content.Context;
 import android.graphics.Rect;
+import android.os.Parcelable;
+import android.util.LruCache;
 import androidx.annotation.LayoutRes;
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
-import androidx.recyclerview.widget.RecyclerView.LayoutManager;
 import android.view.View;
 import android.view.ViewGroup.LayoutParams;
 
+import java.util.ArrayList;
+import java.util.WeakHashMap;
+
 /**
  * Presents a horizontal scroll view ({@link RecyclerView}) of
  * {@link com.snap.ui.recycling.viewmodel.AdapterViewModel} items.
+ *
+ * The scroll position of recently shown scrollers is kept by model id, so a scroller scrolled off screen and back
+ * returns to where it was left.
  */
 public class HorizontalRecyclerViewBinding extends ViewBinding<HorizontalScrollerModel<?>> {
 
     public static final @LayoutRes int LAYOUT = R.layout.recycling_center_recycler_view;
 
+    private static final int SCROLL_STATE_CACHE_SIZE = 32;
+    // LinearLayoutManager's own default.
+    private static final int DEFAULT_INITIAL_PREFETCH_ITEM_COUNT = 2;
+
+    // Scroll states of the scrollers of each factory, since model ids are only unique within a factory's screen.
+    private static final WeakHashMap<ViewFactory, ScrollerStates> sScrollerStates = new WeakHashMap<>();
+
     private BindingViewModelAdapter mAdapter;
     private /* lateinit */ RecyclerView mRecyclerView;
+    private /* lateinit */ LinearLayoutManager mLayoutManager;
+
+    // The scroller shown by the adapter, whose content fingerprint is computed when it is shown, since its list
+    // may change in place.
+    private @Nullable HorizontalScrollerModel<?> mShownModel;
+    private @Nullable ScrollerStates mScrollerStates;
 
     protected BindingViewModelAdapter createAdapter(HorizontalScrollerModel<?> model) {
         return new BindingViewModelAdapter(model.getViewFactory(), model.getEventDispatcher());
@@ -36,10 +60,12 @@ public class HorizontalRecyclerViewBinding extends ViewBinding<HorizontalScrolle
     protected void onCreate(View itemView) {
         Context context = itemView.getContext();
         mRecyclerView = (RecyclerView)itemView;
-        LayoutManager layoutManager = new LinearLayoutManager(context,
+        mLayoutManager = new LinearLayoutManager(context,
                 LinearLayoutManager.HORIZONTAL,
                 false /*reverseLayout*/);
-        mRecyclerView.setLayoutManager(layoutManager);
+        // Rows share their factory's recycled view pool, so a recycled row hands its items back to it.
+        mLayoutManager.setRecycleChildrenOnDetach(true);
+        mRecyclerView.setLayoutManager(mLayoutManager);
         mRecyclerView.setOverScrollMode(View.OVER_SCROLL_NEVER);
         mRecyclerView.setItemAnimator(null);
     }
@@ -50,6 +76,7 @@ public class HorizontalRecyclerViewBinding extends ViewBinding<HorizontalScrolle
         if (mAdapter == null) {
             // First-bind initialization
             mAdapter = createAdapter(model);
+            model.getViewFactory().getRecycledViewPool().attach(mRecyclerView);
             mRecyclerView.setAdapter(mAdapter);
 
             updateLayoutParams(model);
@@ -59,8 +86,79 @@ public class HorizontalRecyclerViewBinding extends ViewBinding<HorizontalScrolle
             updateLayoutParams(model);
         }
 
-        // TODO base model should have a Seekable
-        mAdapter.updateViewModels(Seekables.copyOf(model.getModels()));
+        boolean sameScroller = mShownModel != null && model.getId() == mShownModel.getId();
+        if (mShownModel != null && !sameScroller) {
+            saveScrollState();
+        }
+
+        // Skip updating the adapter when the models have the same contents as the ones shown, which compares
+        // fingerprints rather than the lists. TODO base model should have a Seekable
+        if (!sameScroller || !model.hasSameContents(mShownModel)) {
+            mAdapter.updateViewModels(new ListSeekable<>(new ArrayList<AdapterViewModel>(model.getModels())));
+            // Fingerprints the models as they are now.
+            model.getContentFingerprint();
+            mShownModel = model;
+        }
+
+        if (!sameScroller) {
+            mScrollerStates = getScrollerStates(model.getViewFactory());
+            mLayoutManager.setInitialPrefetchItemCount(getInitialPrefetchItemCount(model));
+            restoreScrollState();
+        }
+    }
+
+    @Override
+    public void onRecycle() {
+        saveScrollState();
+        super.onRecycle();
+    }
+
+    private void saveScrollState() {
+        if (mScrollerStates == null || mShownModel == null) {
+            return;
+        }
+        Parcelable state = mLayoutManager.onSaveInstanceState();
+        if (state != null) {
+            mScrollerStates.mStates.put(mShownModel.getId(), state);
+        }
+        mScrollerStates.mVisibleItemCount = Math.max(mScrollerStates.mVisibleItemCount, mRecyclerView.getChildCount());
+    }
+
+    private void restoreScrollState() {
+        Parcelable state = mScrollerStates != null && mShownModel != null
+                ? mScrollerStates.mStates.get(mShownModel.getId())
+                : null;
+        if (state != null) {
+            mLayoutManager.onRestoreInstanceState(state);
+        } else {
+            mLayoutManager.scrollToPosition(0);
+        }
+    }
+
+    private int getInitialPrefetchItemCount(HorizontalScrollerModel<?> model) {
+        if (model.getVisibleItemEstimate() > 0) {
+            return model.getVisibleItemEstimate();
+        }
+        if (mScrollerStates != null && mScrollerStates.mVisibleItemCount > 0) {
+            return mScrollerStates.mVisibleItemCount;
+        }
+        return DEFAULT_INITIAL_PREFETCH_ITEM_COUNT;
+    }
+
+    @MainThread
+    private static ScrollerStates getScrollerStates(ViewFactory viewFactory) {
+        ScrollerStates states = sScrollerStates.get(viewFactory);
+        if (states == null) {
+            states = new ScrollerStates();
+            sScrollerStates.put(viewFactory, states);
+        }
+        return states;
+    }
+
+    private static class ScrollerStates {
+        final LruCache<Long, Parcelable> mStates = new LruCache<>(SCROLL_STATE_CACHE_SIZE);
+        // The most items seen on screen in one of the factory's scrollers, when no estimate is given.
+        int mVisibleItemCount;
     }
 
     private void updateLayoutParams(HorizontalScrollerModel<?> model) {
@@ -0,0 +1,16 @@
+package com.snap.ui.recycling
+
+/**
+ * Implemented by the [com.snap.ui.seeking.Seekable] emitted by a section that
+ * [ObservableSectionController.loadsItemsLazily], to describe how it differs from the section's previous emission:
+ * [removedCount] items at [changeStart] were replaced by [insertedCount] items, and all other items are the same.
+ *
+ * The adapter then only reads and diffs the changed items, rather than the whole section.
+ */
+interface LazySectionChanges {
+    val changeStart: Int
+
+    val removedCount: Int
+
+    val insertedCount: Int
+}
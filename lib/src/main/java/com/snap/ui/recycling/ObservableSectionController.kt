@@ -16,4 +16,21 @@ interface ObservableSectionController : SectionController, Disposable {
     fun getViewModels(): Observable<out Seekable<AdapterViewModel>>
 
     fun getSectionName(): String = this.javaClass.name
+
+    /**
+     * Returns true if this section never reorders its items between emissions, and only inserts, removes or
+     * changes them. The adapter can then diff the section by matching item ids in linear time.
+     */
+    fun hasStableItemOrder(): Boolean = false
+
+    /**
+     * Returns true if the adapter should read this section's items on demand instead of all at once
+     * when it emits, which suits large cursor-backed sections. The emitted [Seekable] is then read
+     * from both the computation and main threads, possibly at the same time, for as long as it is
+     * displayed, so it must support concurrent reads, as a windowed
+     * [com.snap.ui.seeking.CursorSeekable] does, and stay open until a later emission of the
+     * section has been displayed. Emissions that implement [LazySectionChanges] are diffed only
+     * where they changed.
+     */
+    fun loadsItemsLazily(): Boolean = false
 }
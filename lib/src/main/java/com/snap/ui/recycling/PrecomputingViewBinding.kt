@@ -0,0 +1,38 @@
+package com.snap.ui.recycling
+
+import androidx.annotation.WorkerThread
+import com.snap.ui.recycling.viewmodel.AdapterViewModel
+
+/**
+ * A [ViewBinding] that moves the expensive part of binding, such as text layout or span building, off the main
+ * thread. [com.snap.ui.recycling.adapter.ObservableViewModelSectionAdapter] calls [precompute] on its computation
+ * scheduler for the items around the bound ones once an update is dispatched, caches the result by item, and hands
+ * it to [onBind] on the main thread.
+ *
+ * [precompute] is called on a separate instance of the binding that is never created or bound, from several
+ * threads at once, so it must only read the model. When no result is cached, for instance with adapters that don't
+ * precompute, the binding precomputes on the main thread before binding.
+ */
+abstract class PrecomputingViewBinding<TData : AdapterViewModel, TPrecomputed : Any> : ViewBinding<TData>() {
+
+    private var pendingResult: TPrecomputed? = null
+
+    @WorkerThread
+    abstract fun precompute(model: TData): TPrecomputed
+
+    protected abstract fun onBind(model: TData, previousModel: TData?, precomputed: TPrecomputed)
+
+    final override fun onBind(model: TData, previousModel: TData?) {
+        val precomputed = pendingResult ?: precompute(model)
+        pendingResult = null
+        onBind(model, previousModel, precomputed)
+    }
+
+    /**
+     * Sets the result of [precompute] for the model about to be bound, or null to precompute while binding.
+     */
+    @Suppress("UNCHECKED_CAST")
+    internal fun setPrecomputed(precomputed: Any?) {
+        pendingResult = precomputed as TPrecomputed?
+    }
+}
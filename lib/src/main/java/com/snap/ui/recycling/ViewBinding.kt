@@ -41,12 +41,27 @@ abstract class ViewBinding<TData : AdapterViewModel> {
         onCreate(itemView)
     }
 
+    /**
+     * Called instead of [onBind] when the bound item changed and the adapter passed a change payload, with
+     * the [AdapterViewModel.getChangedFields] of [model] against [previousModel], the model currently bound.
+     * Override to update only the views showing the changed fields. By default, rebinds with [onBind].
+     */
+    protected open fun onBindPayloads(model: TData, previousModel: TData, changedFields: Long) {
+        onBind(model, previousModel)
+    }
+
     open fun bind(model: TData, previousModel: TData?, eventDispatcher: EventDispatcher) {
         this._eventDispatcher = eventDispatcher
         this._model = model
         onBind(model, previousModel)
     }
 
+    open fun bindPayloads(model: TData, previousModel: TData, eventDispatcher: EventDispatcher) {
+        this._eventDispatcher = eventDispatcher
+        this._model = model
+        onBindPayloads(model, previousModel, model.getChangedFields(previousModel))
+    }
+
     @CallSuper
     open fun onRecycle() {
         disposables.clear()
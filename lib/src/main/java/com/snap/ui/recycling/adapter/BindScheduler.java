@@ -0,0 +1,234 @@
+package com.snap.ui.recycling.adapter;
+
+import android.graphics.Rect;
+import android.view.Choreographer;
+import android.view.View;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+import androidx.core.os.TraceCompat;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs deferred view bindings in {@link Choreographer} frame callbacks, binding only as long as the frame
+ * leaves room for layout and drawing. Requests for views on screen are bound before those for offscreen views.
+ *
+ * The frame interval starts at 60 Hz and is lowered to the shortest spacing seen between frame callbacks,
+ * so the budget follows faster displays (90 or 120 Hz) without needing a Context. It can also be set from
+ * {@link android.view.Display#getRefreshRate()}.
+ */
+@MainThread
+public final class BindScheduler {
+
+    /**
+     * A binding to run in a later frame. Requests are used on the main thread only.
+     */
+    public abstract static class BindRequest {
+
+        private boolean mCancelled;
+
+        /**
+         * Returns true if the view to bind is on screen, in which case it is bound before offscreen views.
+         */
+        protected abstract boolean isVisible();
+
+        protected abstract void bind();
+
+        public final void cancel() {
+            mCancelled = true;
+        }
+
+        public final boolean isCancelled() {
+            return mCancelled;
+        }
+    }
+
+    /**
+     * Reports the binds of each frame in which the scheduler ran.
+     */
+    public interface FrameMetricsListener {
+        /**
+         * @param bindsDone     requests bound in this frame
+         * @param bindsDeferred requests left for later frames
+         * @param overrunNanos  how far past its budget the frame's last bind finished, or 0
+         */
+        void onFrameBound(int bindsDone, int bindsDeferred, long overrunNanos);
+    }
+
+    // Share of the frame interval, from vsync, that bindings may use. The rest is left for layout and drawing.
+    private static final float FRAME_BUDGET_FRACTION = 0.6f;
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+    // Bounds for frame intervals. Learned intervals shorter than the minimum are ignored.
+    private static final long MIN_FRAME_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) / 240;
+    private static final long MAX_FRAME_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) / 30;
+
+    private static final Rect sVisibleRect = new Rect();
+    private static BindScheduler sInstance;
+
+    private final ArrayList<BindRequest> mRequests = new ArrayList<>();
+    private final Choreographer mChoreographer;
+    private boolean mFrameScheduled;
+    private long mFrameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+    private long mLastFrameTimeNanos;
+    private @Nullable FrameMetricsListener mMetricsListener;
+
+    private long mTotalBinds;
+    private long mTotalOverrunFrames;
+
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFrameScheduled = false;
+            learnFrameInterval(frameTimeNanos);
+            runFrame(frameTimeNanos);
+        }
+    };
+
+    /**
+     * Returns the scheduler shared by the adapters of the main thread.
+     */
+    @MainThread
+    public static synchronized BindScheduler getInstance() {
+        if (sInstance == null) {
+            sInstance = new BindScheduler(Choreographer.getInstance());
+        }
+        return sInstance;
+    }
+
+    BindScheduler(Choreographer choreographer) {
+        mChoreographer = choreographer;
+    }
+
+    /**
+     * Queues {@code request} to be bound in a coming frame.
+     */
+    public void schedule(BindRequest request) {
+        mRequests.add(request);
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            mChoreographer.postFrameCallback(mFrameCallback);
+        }
+    }
+
+    /**
+     * Sets the display refresh rate, for instance from {@link android.view.Display#getRefreshRate()}. Frames shorter
+     * than this are still learned from frame callbacks.
+     */
+    public void setRefreshRate(float refreshRateHz) {
+        if (refreshRateHz > 0) {
+            mFrameIntervalNanos = clampFrameInterval((long) (TimeUnit.SECONDS.toNanos(1) / (double) refreshRateHz));
+        }
+    }
+
+    public long getFrameIntervalNanos() {
+        return mFrameIntervalNanos;
+    }
+
+    public void setFrameMetricsListener(@Nullable FrameMetricsListener listener) {
+        mMetricsListener = listener;
+    }
+
+    public long getTotalBinds() {
+        return mTotalBinds;
+    }
+
+    /**
+     * Number of frames whose binds went over the frame's budget.
+     */
+    public long getTotalOverrunFrames() {
+        return mTotalOverrunFrames;
+    }
+
+    public int getPendingRequestCount() {
+        return mRequests.size();
+    }
+
+    /**
+     * Returns true if {@code view} is attached and at least partly on screen.
+     */
+    public static boolean isOnScreen(View view) {
+        return view.isShown() && view.getGlobalVisibleRect(sVisibleRect);
+    }
+
+    void runFrame(long frameTimeNanos) {
+        TraceCompat.beginSection("RC:bindFrame");
+        long deadline = frameTimeNanos + (long) (mFrameIntervalNanos * FRAME_BUDGET_FRACTION);
+        int done = 0;
+        try {
+            // Visible requests first, then the rest, each in the order they were scheduled.
+            done = runRequests(true, deadline, done);
+            done = runRequests(false, deadline, done);
+        } finally {
+            removeCompletedRequests();
+            TraceCompat.endSection();
+        }
+
+        long overrun = Math.max(0, System.nanoTime() - deadline);
+        mTotalBinds += done;
+        if (overrun > 0) {
+            mTotalOverrunFrames++;
+        }
+        if (mMetricsListener != null) {
+            mMetricsListener.onFrameBound(done, mRequests.size(), overrun);
+        }
+        if (!mRequests.isEmpty() && !mFrameScheduled) {
+            mFrameScheduled = true;
+            mChoreographer.postFrameCallback(mFrameCallback);
+        }
+    }
+
+    private int runRequests(boolean visibleOnly, long deadline, int done) {
+        // Requests scheduled by a bind are left for the next frame.
+        int count = mRequests.size();
+        for (int i = 0; i < count; i++) {
+            BindRequest request = mRequests.get(i);
+            if (request == null) {
+                continue;
+            }
+            if (request.isCancelled()) {
+                mRequests.set(i, null);
+                continue;
+            }
+            // Always bind at least one request per frame, so a late frame can't stall binding.
+            if (done > 0 && System.nanoTime() >= deadline) {
+                return done;
+            }
+            if (visibleOnly && !request.isVisible()) {
+                continue;
+            }
+            mRequests.set(i, null);
+            request.bind();
+            done++;
+        }
+        return done;
+    }
+
+    private void removeCompletedRequests() {
+        int kept = 0;
+        for (int i = 0; i < mRequests.size(); i++) {
+            BindRequest request = mRequests.get(i);
+            if (request != null && !request.isCancelled()) {
+                mRequests.set(kept++, request);
+            }
+        }
+        for (int i = mRequests.size() - 1; i >= kept; i--) {
+            mRequests.remove(i);
+        }
+    }
+
+    private void learnFrameInterval(long frameTimeNanos) {
+        long interval = frameTimeNanos - mLastFrameTimeNanos;
+        mLastFrameTimeNanos = frameTimeNanos;
+        // Consecutive callbacks are one vsync apart, or a multiple of it if frames were skipped or the
+        // scheduler was idle, so the shortest spacing seen is the refresh interval.
+        if (interval >= MIN_FRAME_INTERVAL_NANOS && interval < mFrameIntervalNanos) {
+            mFrameIntervalNanos = interval;
+        }
+    }
+
+    private static long clampFrameInterval(long interval) {
+        return Math.max(MIN_FRAME_INTERVAL_NANOS, Math.min(MAX_FRAME_INTERVAL_NANOS, interval));
+    }
+}
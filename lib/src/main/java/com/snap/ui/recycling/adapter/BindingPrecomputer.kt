@@ -0,0 +1,71 @@
+package com.snap.ui.recycling.adapter
+
+import android.util.LruCache
+import androidx.annotation.MainThread
+import androidx.annotation.WorkerThread
+import com.snap.ui.recycling.AdapterViewType
+import com.snap.ui.recycling.BindingAdapterViewType
+import com.snap.ui.recycling.PrecomputingViewBinding
+import com.snap.ui.recycling.factory.BindingViewHolder
+import com.snap.ui.recycling.factory.ViewModelViewHolder
+import com.snap.ui.recycling.viewmodel.AdapterViewModel
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Runs [PrecomputingViewBinding.precompute] for models of the generations just applied, and keeps the results
+ * by the item's unique id until they are bound. A result is reused for a later model with the same id as long as its
+ * contents are the same.
+ */
+internal class BindingPrecomputer(cacheSize: Int) {
+
+    private class Result(val model: AdapterViewModel, val value: Any)
+
+    // One unbound binding instance per binding class, used only to call precompute.
+    private val precomputers = ConcurrentHashMap<Class<*>, PrecomputingViewBinding<AdapterViewModel, Any>>()
+    private val results = LruCache<Long, Result>(cacheSize)
+
+    @WorkerThread
+    fun precompute(model: AdapterViewModel, uniqueId: Long) {
+        val precomputer = precomputerFor(model.type) ?: return
+        val cached = results.get(uniqueId)
+        if (cached != null && isSameModel(cached.model, model)) {
+            return
+        }
+        val value = try {
+            precomputer.precompute(model)
+        } catch (e: RuntimeException) {
+            // Left to the main thread, where binding errors are reported with the item's position.
+            results.remove(uniqueId)
+            return
+        }
+        results.put(uniqueId, Result(model, value))
+    }
+
+    /**
+     * Hands the cached result for [model], if any, to the binding of [holder] ahead of binding it.
+     */
+    @MainThread
+    fun prepare(holder: ViewModelViewHolder<*>, model: AdapterViewModel, uniqueId: Long) {
+        val binding = (holder.bindingHolder as? BindingViewHolder<*, *>)?.binding as? PrecomputingViewBinding<*, *>
+                ?: return
+        val cached = results.get(uniqueId)
+        binding.setPrecomputed(if (cached != null && isSameModel(cached.model, model)) cached.value else null)
+    }
+
+    fun clear() {
+        results.evictAll()
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun precomputerFor(type: AdapterViewType): PrecomputingViewBinding<AdapterViewModel, Any>? {
+        val bindingClass = (type as? BindingAdapterViewType)?.viewBindingClass ?: return null
+        if (!PrecomputingViewBinding::class.java.isAssignableFrom(bindingClass)) {
+            return null
+        }
+        return precomputers[bindingClass] ?: (bindingClass.newInstance() as PrecomputingViewBinding<AdapterViewModel, Any>)
+                .let { precomputers.putIfAbsent(bindingClass, it) ?: it }
+    }
+
+    private fun isSameModel(cached: AdapterViewModel, model: AdapterViewModel) =
+            cached === model || model.hasSameContents(cached)
+}
@@ -1,8 +1,11 @@
 package com.snap.ui.recycling.adapter;
 
-import android.os.CancellationSignal;
 import androidx.annotation.IntDef;
 import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.BatchingListUpdateCallback;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 import android.util.SparseArray;
 import android.view.View;
@@ -20,6 +23,7 @@ import com.snap.ui.seeking.Seekables;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.List;
 
 /**
  * A {@link RecyclerView.Adapter} that uses {@link ViewFactory} as
@@ -40,6 +44,7 @@ public class BindingViewModelAdapter extends RecyclerView.Adapter<ViewModelViewH
     public static final int BIND_METHOD = BIND_SYNC;
 
     private static final int ANIMATION_DURATION_MS = 100;
+    private static final Object PAYLOAD_CHANGED = new Object();
     private final ViewFactory mSearchViewFactory;
     private final EventDispatcher mEventDispatcher;
 
@@ -47,20 +52,30 @@ public class BindingViewModelAdapter extends RecyclerView.Adapter<ViewModelViewH
 
     /**
      * A map of position -> async bindings we have in flight, used to cancel them if data changes prior to us finishing
-     * the binding.
+     * the binding. Positions are shifted along with the items as updates are notified.
      */
-    private final SparseArray<CancellationSignal> mPendingBinds = new SparseArray<>();
+    private final SparseArray<PendingBind> mPendingBinds = new SparseArray<>();
 
     private final boolean mAsyncBinding;
+    // Resolved on the first async bind, since it needs a Looper thread.
+    private @Nullable BindScheduler mBindScheduler;
 
     public BindingViewModelAdapter(ViewFactory viewFactory, EventDispatcher eventDispatcher) {
         this(viewFactory, eventDispatcher, BIND_METHOD == BIND_ASYNC_CELLS);
     }
 
     public BindingViewModelAdapter(ViewFactory viewFactory, EventDispatcher eventDispatcher, boolean asyncBinding) {
+        this(viewFactory, eventDispatcher, asyncBinding, null);
+    }
+
+    BindingViewModelAdapter(ViewFactory viewFactory,
+                            EventDispatcher eventDispatcher,
+                            boolean asyncBinding,
+                            @Nullable BindScheduler bindScheduler) {
         mSearchViewFactory = viewFactory;
         mEventDispatcher = eventDispatcher;
         mAsyncBinding = asyncBinding;
+        mBindScheduler = bindScheduler;
         setHasStableIds(true);
     }
 
@@ -98,57 +113,83 @@ public class BindingViewModelAdapter extends RecyclerView.Adapter<ViewModelViewH
     public void onBindViewHolder(final ViewModelViewHolder holder, int position) {
         if (mAsyncBinding && !holder.hasBeenBound()) {
             LayoutParams lp = holder.itemView.getLayoutParams();
-            final boolean needsSizing = lp.width == LayoutParams.WRAP_CONTENT || lp.height == LayoutParams.WRAP_CONTENT;
+            boolean needsSizing = lp.width == LayoutParams.WRAP_CONTENT || lp.height == LayoutParams.WRAP_CONTENT;
             if (needsSizing) {
                 holder.itemView.setVisibility(View.INVISIBLE);
             }
 
-            final CancellationSignal cancellationSignal = new CancellationSignal();
-            holder.itemView.post(new Runnable() {
-                @Override
-                public void run() {
-                    if (cancellationSignal.isCanceled()) {
-                        return;
-                    }
-
-                    int pos = holder.getAdapterPosition();
-                    mPendingBinds.remove(pos);
-                    if (pos != RecyclerView.NO_POSITION) {
-                        holder.bind(mViewModels.get(pos), mEventDispatcher, null);
-                        if (needsSizing) {
-                            holder.itemView.setVisibility(View.VISIBLE);
-                            holder.itemView.setAlpha(0f);
-                            holder.itemView.animate()
-                                    .alpha(1)
-                                    .withLayer()
-                                    .setDuration(ANIMATION_DURATION_MS);
-                        }
-                    }
-                }
-            });
-
-            mPendingBinds.put(holder.getAdapterPosition(), cancellationSignal);
+            cancelPendingBinding(holder);
+            PendingBind request = new PendingBind(holder, needsSizing);
+            if (mBindScheduler == null) {
+                mBindScheduler = BindScheduler.getInstance();
+            }
+            mBindScheduler.schedule(request);
+            mPendingBinds.put(position, request);
         } else {
             holder.bind(mViewModels.get(position), mEventDispatcher, null);
         }
     }
 
+    @Override
+    public void onBindViewHolder(ViewModelViewHolder holder, int position, List<Object> payloads) {
+        if (payloads.isEmpty() || !holder.hasBeenBound()) {
+            onBindViewHolder(holder, position);
+        } else {
+            holder.bind(mViewModels.get(position), mEventDispatcher, null, payloads);
+        }
+    }
+
     @Override
     public void onViewRecycled(ViewModelViewHolder holder) {
-        cancelPendingBinding(holder.getAdapterPosition());
+        cancelPendingBinding(holder);
         if (holder.getBoundViewModel() != null) {
             holder.recycle();
         }
     }
 
     private void cancelPendingBinding(int adapterPosition) {
-        CancellationSignal pendingBinding = mPendingBinds.get(adapterPosition);
+        BindScheduler.BindRequest pendingBinding = mPendingBinds.get(adapterPosition);
         if (pendingBinding != null) {
             pendingBinding.cancel();
         }
         mPendingBinds.remove(adapterPosition);
     }
 
+    private void cancelPendingBinding(ViewModelViewHolder holder) {
+        for (int i = 0; i < mPendingBinds.size(); i++) {
+            PendingBind pendingBinding = mPendingBinds.valueAt(i);
+            if (pendingBinding.mHolder == holder) {
+                pendingBinding.cancel();
+                mPendingBinds.removeAt(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the positions of the pending bindings in [{@code start}, {@code end}).
+     */
+    private void offsetPendingBinds(int start, int end, int delta) {
+        int count = 0;
+        PendingBind[] shifted = null;
+        int[] positions = null;
+        for (int i = mPendingBinds.size() - 1; i >= 0; i--) {
+            int position = mPendingBinds.keyAt(i);
+            if (position >= start && position < end) {
+                if (shifted == null) {
+                    shifted = new PendingBind[i + 1];
+                    positions = new int[i + 1];
+                }
+                shifted[count] = mPendingBinds.valueAt(i);
+                positions[count++] = position + delta;
+                mPendingBinds.removeAt(i);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            mPendingBinds.put(positions[i], shifted[i]);
+        }
+    }
+
     @MainThread
     public void updateViewModels(Seekable<? extends AdapterViewModel> views) {
         if (views instanceof ImmutableList && views == mViewModels) {
@@ -162,37 +203,150 @@ public class BindingViewModelAdapter extends RecyclerView.Adapter<ViewModelViewH
 
     /**
      * Notifies the given {@code adapter} to update only the views that have changed.  This results in less flickering
-     * when an update happens.
+     * when an update happens. Consecutive changes are notified as ranges, and items inserted or removed in the
+     * middle are matched by id, so the items after them are not rebound. Reordered items fall back to
+     * {@link DiffUtil} without move detection, which notifies them as removed and inserted, so that a large
+     * reorder doesn't take quadratic time on the main thread.
      */
     private void notifyChangedViews(
             Seekable<? extends AdapterViewModel> previousViews,
             Seekable<? extends AdapterViewModel> newViews) {
-        int oldSize = previousViews.size();
-        int newSize = newViews.size();
-        int maxUpdateRange = Math.max(oldSize, newSize);
-
-        for (int i = 0; i < maxUpdateRange; i++) {
-            if (i >= newSize) {
-                int itemCount = oldSize - newSize;
-                // change the binding cancellation to use an AdapterDataOberver
-                for (int pos = i; pos < i + itemCount; pos++) {
-                    cancelPendingBinding(pos);
-                }
-                notifyItemRangeRemoved(i, itemCount);
-                return;
+        ViewModelDiffCallback callback = new ViewModelDiffCallback(previousViews, newViews);
+        BatchingListUpdateCallback updates = new BatchingListUpdateCallback(mAdapterUpdates);
+        if (!LinearDiff.INSTANCE.diffSingleRun(callback, updates)
+                && !LinearDiff.INSTANCE.diffStableOrder(callback, callback, updates)) {
+            DiffUtil.calculateDiff(callback, false).dispatchUpdatesTo(updates);
+        }
+        updates.dispatchLastEvent();
+    }
+
+    /**
+     * Notifies this adapter, cancelling the pending bindings of changed and removed items.
+     */
+    private final ListUpdateCallback mAdapterUpdates = new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            offsetPendingBinds(position, Integer.MAX_VALUE, count);
+            notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            // change the binding cancellation to use an AdapterDataOberver
+            for (int pos = position; pos < position + count; pos++) {
+                cancelPendingBinding(pos);
             }
-            if (i >= oldSize) {
-                notifyItemRangeInserted(i, newSize - oldSize);
-                return;
+            offsetPendingBinds(position + count, Integer.MAX_VALUE, -count);
+            notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            PendingBind moved = mPendingBinds.get(fromPosition);
+            mPendingBinds.remove(fromPosition);
+            if (fromPosition < toPosition) {
+                offsetPendingBinds(fromPosition + 1, toPosition + 1, -1);
+            } else {
+                offsetPendingBinds(toPosition, fromPosition, 1);
+            }
+            if (moved != null) {
+                mPendingBinds.put(toPosition, moved);
             }
+            notifyItemMoved(fromPosition, toPosition);
+        }
 
-            // TODO also update ranges
-            AdapterViewModel newView = newViews.get(i);
-            AdapterViewModel oldView = previousViews.get(i);
-            if (!newView.areItemsTheSame(oldView) || !newView.areContentsTheSame(oldView)) {
-                cancelPendingBinding(i);
-                notifyItemChanged(i);
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            for (int pos = position; pos < position + count; pos++) {
+                cancelPendingBinding(pos);
             }
+            notifyItemRangeChanged(position, count, payload);
+        }
+    };
+
+    /**
+     * Binds a holder in a coming frame, at the position its entry in {@link #mPendingBinds} has by then.
+     */
+    private class PendingBind extends BindScheduler.BindRequest {
+        final ViewModelViewHolder mHolder;
+        private final boolean mNeedsSizing;
+
+        PendingBind(ViewModelViewHolder holder, boolean needsSizing) {
+            mHolder = holder;
+            mNeedsSizing = needsSizing;
+        }
+
+        @Override
+        protected boolean isVisible() {
+            return BindScheduler.isOnScreen(mHolder.itemView);
+        }
+
+        @Override
+        protected void bind() {
+            int index = mPendingBinds.indexOfValue(this);
+            if (index < 0) {
+                return;
+            }
+            int position = mPendingBinds.keyAt(index);
+            mPendingBinds.removeAt(index);
+            mHolder.bind(mViewModels.get(position), mEventDispatcher, null);
+            if (mNeedsSizing) {
+                mHolder.itemView.setVisibility(View.VISIBLE);
+                mHolder.itemView.setAlpha(0f);
+                mHolder.itemView.animate()
+                        .alpha(1)
+                        .withLayer()
+                        .setDuration(ANIMATION_DURATION_MS);
+            }
+        }
+    }
+
+    private static class ViewModelDiffCallback extends DiffUtil.Callback implements ItemIds {
+        private final Seekable<? extends AdapterViewModel> mOldViews;
+        private final Seekable<? extends AdapterViewModel> mNewViews;
+
+        ViewModelDiffCallback(
+                Seekable<? extends AdapterViewModel> oldViews,
+                Seekable<? extends AdapterViewModel> newViews) {
+            mOldViews = oldViews;
+            mNewViews = newViews;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOldViews.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewViews.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return mNewViews.get(newItemPosition).areItemsTheSame(mOldViews.get(oldItemPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return mNewViews.get(newItemPosition).hasSameContents(mOldViews.get(oldItemPosition));
+        }
+
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            // Holders rebind against the model they have bound, so one payload for all changes lets consecutive
+            // changes be notified as one range.
+            return PAYLOAD_CHANGED;
+        }
+
+        @Override
+        public long oldItemId(int oldItemPosition) {
+            return mOldViews.get(oldItemPosition).getId();
+        }
+
+        @Override
+        public long newItemId(int newItemPosition) {
+            return mNewViews.get(newItemPosition).getId();
         }
     }
 }
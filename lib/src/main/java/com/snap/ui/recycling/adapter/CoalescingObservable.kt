@@ -0,0 +1,131 @@
+package com.snap.ui.recycling.adapter
+
+import io.reactivex.Observable
+import io.reactivex.ObservableSource
+import io.reactivex.Observer
+import io.reactivex.Scheduler
+import io.reactivex.disposables.Disposable
+import java.util.concurrent.TimeUnit
+
+/**
+ * Emits the latest item of [source] once it has been pending for a quiet window, dropping the items it
+ * replaced. A pending item is never held for longer than [maxLatencyNanos], even while new items keep
+ * resetting the quiet window. If a [FrameTrigger] is given, the quiet window is replaced by the next
+ * frame. Items are emitted on [scheduler].
+ */
+internal class CoalescingObservable<T>(
+    private val source: ObservableSource<T>,
+    private val scheduler: Scheduler,
+    private val windowNanos: () -> Long,
+    private val maxLatencyNanos: Long,
+    private val frameTrigger: FrameTrigger?
+) : Observable<T>() {
+
+    interface FrameTrigger {
+        fun postFrameCallback(callback: Runnable)
+    }
+
+    override fun subscribeActual(observer: Observer<in T>) {
+        source.subscribe(CoalescingObserver(observer, scheduler.createWorker()))
+    }
+
+    private inner class CoalescingObserver(
+        private val downstream: Observer<in T>,
+        private val worker: Scheduler.Worker
+    ) : Observer<T>, Disposable {
+
+        private val lock = Any()
+        private lateinit var upstream: Disposable
+
+        // Guarded by lock
+        private var latest: T? = null
+        private var hasLatest = false
+        private var firstPendingNanos = 0L
+        private var timer: Disposable? = null
+        private var frameRequested = false
+
+        @Volatile
+        private var disposed = false
+
+        // Runs on the worker, so emissions are serialized.
+        private val flush = Runnable {
+            var item: T? = null
+            var emit = false
+            synchronized(lock) {
+                if (hasLatest) {
+                    item = latest
+                    emit = true
+                    latest = null
+                    hasLatest = false
+                    timer?.dispose()
+                    timer = null
+                    frameRequested = false
+                }
+            }
+            if (emit && !disposed) {
+                @Suppress("UNCHECKED_CAST")
+                downstream.onNext(item as T)
+            }
+        }
+
+        private val flushOnWorker = Runnable { worker.schedule(flush) }
+
+        override fun onSubscribe(d: Disposable) {
+            upstream = d
+            downstream.onSubscribe(this)
+        }
+
+        override fun onNext(t: T) {
+            val now = worker.now(TimeUnit.NANOSECONDS)
+            synchronized(lock) {
+                if (!hasLatest) {
+                    firstPendingNanos = now
+                }
+                latest = t
+                hasLatest = true
+
+                val untilDeadline = Math.max(0, firstPendingNanos + maxLatencyNanos - now)
+                val trigger = frameTrigger
+                if (trigger != null) {
+                    if (!frameRequested) {
+                        frameRequested = true
+                        trigger.postFrameCallback(flushOnWorker)
+                    }
+                    if (timer == null) {
+                        timer = worker.schedule(flush, untilDeadline, TimeUnit.NANOSECONDS)
+                    }
+                } else {
+                    timer?.dispose()
+                    timer = worker.schedule(flush, Math.min(windowNanos(), untilDeadline), TimeUnit.NANOSECONDS)
+                }
+            }
+        }
+
+        override fun onError(e: Throwable) {
+            synchronized(lock) {
+                latest = null
+                hasLatest = false
+            }
+            worker.schedule {
+                downstream.onError(e)
+                worker.dispose()
+            }
+        }
+
+        override fun onComplete() {
+            worker.schedule {
+                flush.run()
+                downstream.onComplete()
+                worker.dispose()
+            }
+        }
+
+        override fun dispose() {
+            disposed = true
+            upstream.dispose()
+            worker.dispose()
+        }
+
+        override fun isDisposed() = disposed
+    }
+}
@@ -0,0 +1,119 @@
+package com.snap.ui.recycling.adapter
+
+import androidx.annotation.MainThread
+import androidx.recyclerview.widget.BatchingListUpdateCallback
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListUpdateCallback
+import androidx.recyclerview.widget.RecyclerView
+
+/**
+ * Adapter notifications computed off the main thread, to be replayed on the main thread as
+ * one dispatch. Updates are replayed in the order they were recorded.
+ */
+internal class ItemUpdateBatch {
+
+    private val updates = ArrayList<Update>()
+
+    // Added to the positions of the updates being recorded.
+    private var offset = 0
+
+    private val recorder = object : ListUpdateCallback {
+        override fun onInserted(position: Int, count: Int) {
+            updates.add(Update(INSERT, position + offset, count, null))
+        }
+
+        override fun onRemoved(position: Int, count: Int) {
+            updates.add(Update(REMOVE, position + offset, count, null))
+        }
+
+        override fun onMoved(fromPosition: Int, toPosition: Int) {
+            updates.add(Update(MOVE, fromPosition + offset, toPosition + offset, null))
+        }
+
+        override fun onChanged(position: Int, count: Int, payload: Any?) {
+            updates.add(Update(CHANGE, position + offset, count, payload))
+        }
+    }
+
+    val isEmpty: Boolean
+        get() = updates.isEmpty()
+
+    /**
+     * Records the updates of [diff], whose positions are relative to [offset] in the adapter.
+     * Change payloads are computed now, on the calling thread.
+     */
+    fun add(diff: DiffUtil.DiffResult, offset: Int) {
+        record(offset) { updates ->
+            diff.dispatchUpdatesTo(updates)
+            true
+        }
+    }
+
+    /**
+     * Records the updates [diff] reports to its [ListUpdateCallback], whose positions are relative to
+     * [offset] in the adapter. Consecutive updates are merged where possible. Returns the result of [diff].
+     */
+    fun record(offset: Int, diff: (ListUpdateCallback) -> Boolean): Boolean {
+        this.offset = offset
+        val batching = BatchingListUpdateCallback(recorder)
+        val recorded = diff(batching)
+        batching.dispatchLastEvent()
+        this.offset = 0
+        return recorded
+    }
+
+    /**
+     * Returns the position that the item at [position] before these updates has after them. For an item that is
+     * removed, returns the position it was removed at.
+     */
+    fun trackPosition(position: Int): Int {
+        var tracked = position
+        for (i in 0 until updates.size) {
+            val update = updates[i]
+            when (update.type) {
+                INSERT -> if (update.position <= tracked) {
+                    tracked += update.count
+                }
+                REMOVE -> if (update.position + update.count <= tracked) {
+                    tracked -= update.count
+                } else if (update.position <= tracked) {
+                    tracked = update.position
+                }
+                MOVE -> if (update.position == tracked) {
+                    tracked = update.count
+                } else {
+                    if (update.position < tracked) {
+                        tracked--
+                    }
+                    if (update.count <= tracked) {
+                        tracked++
+                    }
+                }
+            }
+        }
+        return tracked
+    }
+
+    @MainThread
+    fun dispatchUpdatesTo(adapter: RecyclerView.Adapter<*>) {
+        for (i in 0 until updates.size) {
+            val update = updates[i]
+            when (update.type) {
+                INSERT -> adapter.notifyItemRangeInserted(update.position, update.count)
+                REMOVE -> adapter.notifyItemRangeRemoved(update.position, update.count)
+                MOVE -> adapter.notifyItemMoved(update.position, update.count)
+                CHANGE -> adapter.notifyItemRangeChanged(update.position, update.count, update.payload)
+            }
+        }
+    }
+
+    // For MOVE updates, count holds the destination position.
+    private class Update(val type: Int, val position: Int, val count: Int, val payload: Any?)
+
+    private companion object {
+        const val INSERT = 0
+        const val REMOVE = 1
+        const val MOVE = 2
+        const val CHANGE = 3
+    }
+}
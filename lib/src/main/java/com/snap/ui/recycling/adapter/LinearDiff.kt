@@ -0,0 +1,187 @@
+package com.snap.ui.recycling.adapter
+
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListUpdateCallback
+
+/**
+ * Stable ids of the items compared by a [DiffUtil.Callback].
+ */
+internal interface ItemIds {
+    fun oldItemId(oldItemPosition: Int): Long
+    fun newItemId(newItemPosition: Int): Long
+}
+
+/**
+ * Linear-time alternatives to [DiffUtil.calculateDiff] for common update patterns. Each diff either records
+ * a complete set of updates and returns true, or records nothing and returns false so the caller can fall
+ * back to [DiffUtil.calculateDiff].
+ */
+internal object LinearDiff {
+
+    /**
+     * Handles updates where the new list is the old list with one run of items inserted or removed,
+     * such as appending a page, prepending new items or truncating. Items are only compared where the
+     * lists line up at their start and at their end.
+     */
+    fun diffSingleRun(callback: DiffUtil.Callback, updates: ListUpdateCallback): Boolean {
+        val oldSize = callback.oldListSize
+        val newSize = callback.newListSize
+        val common = Math.min(oldSize, newSize)
+
+        var prefix = 0
+        while (prefix < common && callback.areItemsTheSame(prefix, prefix)) {
+            prefix++
+        }
+        var suffix = 0
+        while (prefix + suffix < common &&
+                callback.areItemsTheSame(oldSize - 1 - suffix, newSize - 1 - suffix)) {
+            suffix++
+        }
+        if (prefix + suffix != common) {
+            return false
+        }
+
+        for (i in 0 until prefix) {
+            dispatchChange(callback, i, i, i, updates)
+        }
+        if (newSize > oldSize) {
+            updates.onInserted(prefix, newSize - oldSize)
+        } else if (oldSize > newSize) {
+            updates.onRemoved(prefix, oldSize - newSize)
+        }
+        // The insertion or removal has been applied, so positions are now new list positions.
+        for (i in 0 until suffix) {
+            val newItemPosition = newSize - suffix + i
+            dispatchChange(callback, oldSize - suffix + i, newItemPosition, newItemPosition, updates)
+        }
+        return true
+    }
+
+    /**
+     * Handles lists whose common items keep their relative order, matching items by id. Fails if ids are
+     * not unique within a list, or if the common items were reordered.
+     */
+    fun diffStableOrder(callback: DiffUtil.Callback, ids: ItemIds, updates: ListUpdateCallback): Boolean {
+        val oldSize = callback.oldListSize
+        val newSize = callback.newListSize
+        val oldIds = LongIdSet(oldSize)
+        for (i in 0 until oldSize) {
+            if (!oldIds.add(ids.oldItemId(i))) {
+                return false
+            }
+        }
+        val newIds = LongIdSet(newSize)
+        for (i in 0 until newSize) {
+            if (!newIds.add(ids.newItemId(i))) {
+                return false
+            }
+        }
+
+        // Check that the items present in both lists are in the same order before recording anything.
+        var oldPosition = 0
+        var newPosition = 0
+        while (true) {
+            while (oldPosition < oldSize && !newIds.contains(ids.oldItemId(oldPosition))) {
+                oldPosition++
+            }
+            while (newPosition < newSize && !oldIds.contains(ids.newItemId(newPosition))) {
+                newPosition++
+            }
+            if (oldPosition == oldSize || newPosition == newSize) {
+                if (oldPosition != oldSize || newPosition != newSize) {
+                    return false
+                }
+                break
+            }
+            if (ids.oldItemId(oldPosition) != ids.newItemId(newPosition)) {
+                return false
+            }
+            oldPosition++
+            newPosition++
+        }
+
+        var position = 0
+        oldPosition = 0
+        newPosition = 0
+        while (oldPosition < oldSize || newPosition < newSize) {
+            if (oldPosition < oldSize && !newIds.contains(ids.oldItemId(oldPosition))) {
+                updates.onRemoved(position, 1)
+                oldPosition++
+            } else if (newPosition < newSize && !oldIds.contains(ids.newItemId(newPosition))) {
+                updates.onInserted(position, 1)
+                position++
+                newPosition++
+            } else {
+                dispatchChange(callback, oldPosition, newPosition, position, updates)
+                position++
+                oldPosition++
+                newPosition++
+            }
+        }
+        return true
+    }
+
+    private fun dispatchChange(
+        callback: DiffUtil.Callback,
+        oldItemPosition: Int,
+        newItemPosition: Int,
+        position: Int,
+        updates: ListUpdateCallback
+    ) {
+        if (!callback.areContentsTheSame(oldItemPosition, newItemPosition)) {
+            updates.onChanged(position, 1, callback.getChangePayload(oldItemPosition, newItemPosition))
+        }
+    }
+}
+
+/**
+ * A fixed-capacity open-addressing set of longs, sized for the number of ids it will hold.
+ */
+internal class LongIdSet(expectedSize: Int) {
+
+    private val ids: LongArray
+    private val occupied: BooleanArray
+    private val mask: Int
+
+    init {
+        var capacity = 4
+        while (capacity < expectedSize * 2) {
+            capacity = capacity shl 1
+        }
+        ids = LongArray(capacity)
+        occupied = BooleanArray(capacity)
+        mask = capacity - 1
+    }
+
+    /**
+     * Adds [id], returning false if it was already present.
+     */
+    fun add(id: Long): Boolean {
+        var slot = slot(id)
+        while (occupied[slot]) {
+            if (ids[slot] == id) {
+                return false
+            }
+            slot = (slot + 1) and mask
+        }
+        occupied[slot] = true
+        ids[slot] = id
+        return true
+    }
+
+    fun contains(id: Long): Boolean {
+        var slot = slot(id)
+        while (occupied[slot]) {
+            if (ids[slot] == id) {
+                return true
+            }
+            slot = (slot + 1) and mask
+        }
+        return false
+    }
+
+    private fun slot(id: Long): Int {
+        val hash = id * -7046029254386353131L
+        return (hash xor (hash ushr 32)).toInt() and mask
+    }
+}
@@ -12,6 +12,7 @@ import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static androidx.recyclerview.widget.RecyclerView.NO_POSITION;
@@ -224,6 +225,12 @@ public class LoopingAdapter<T extends ViewHolder> extends RecyclerView.Adapter<T
         adapter.onBindViewHolder(holder, position);
     }
 
+    @Override
+    public void onBindViewHolder(T holder, int position, List<Object> payloads) {
+        position = position % adapter.getItemCount();
+        adapter.onBindViewHolder(holder, position, payloads);
+    }
+
     @Override
     public int getItemCount() {
         return adapter.getItemCount() > 0 ? Integer.MAX_VALUE : 0;
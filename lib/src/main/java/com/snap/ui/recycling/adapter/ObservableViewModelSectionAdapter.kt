@@ -14,7 +14,6 @@ import com.snap.ui.recycling.adapter.errorhandling.SectionErrorHandler
 import com.snap.ui.recycling.factory.ViewFactory
 import com.snap.ui.recycling.factory.ViewModelViewHolder
 import com.snap.ui.recycling.viewmodel.AdapterViewModel
-import com.snap.ui.seeking.ListSeekable
 import com.snap.ui.seeking.Seekable
 import com.snap.ui.seeking.Seekables
 import io.reactivex.Observable
@@ -26,6 +25,7 @@ import io.reactivex.disposables.Disposable
 import io.reactivex.schedulers.Schedulers
 import io.reactivex.subjects.BehaviorSubject
 import io.reactivex.subjects.PublishSubject
+import java.util.IdentityHashMap
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicLong
 import java.util.concurrent.atomic.AtomicReference
@@ -47,7 +47,20 @@ open class ObservableViewModelSectionAdapter
 ) : RecyclerView.Adapter<ViewModelViewHolder<in AdapterViewModel>>(), ViewModelAdapter {
 
     private val generation = AtomicLong(0)
-    private val mainThreadData: AtomicReference<Seekable<SectionItemInfo>> = AtomicReference(Seekables.empty())
+    private val mainThreadData = AtomicReference(SectionItemTable.EMPTY)
+
+    // The applied generation and its size, as plain fields for the main thread, which reads them many times per
+    // layout pass. Updated together with mainThreadData when a generation is applied.
+    private var appliedData = SectionItemTable.EMPTY
+    private var appliedItemCount = 0
+
+    // A table the main thread has finished with, to be refilled for a later generation.
+    private val recycledTable = AtomicReference<SectionItemTable>()
+
+    // The ids of each section of the applied generation, captured when its table was filled, for the section
+    // threads, which must not read the tables since those are recycled.
+    @Volatile
+    private var appliedSectionIds: Map<ObservableSectionController, UniqueIdComposer.SectionIds> = emptyMap()
 
     private val sectionsSource = BehaviorSubject.createDefault(defaultSections)
 
@@ -55,6 +68,18 @@ open class ObservableViewModelSectionAdapter
         defaultSections?.forEach { add(it) }
     }
 
+    private val uniqueIdComposer = UniqueIdComposer()
+
+    // Results of PrecomputingViewBinding.precompute for the items around the bound ones in recent generations.
+    private val precomputer = BindingPrecomputer(PRECOMPUTED_CACHE_SIZE)
+
+    // The position last bound on the main thread, around which the next generation is precomputed.
+    @Volatile
+    private var lastBoundPosition = 0
+
+    // The items of the last applied generation to precompute, until a computation thread takes them.
+    private val pendingPrecompute = AtomicReference<PrecomputeWindow>()
+
     private val emptySeekable = Seekables.copyOf(emptyList<AdapterViewModel>())
     private val emptyObservable = Observable.just(emptySeekable)
 
@@ -90,16 +115,65 @@ open class ObservableViewModelSectionAdapter
     @Volatile
     var loadSectionsInOrder = false
 
+    /**
+     * Decides how bursts of section updates are coalesced before they are diffed.
+     * Changes take effect on the next call to [subscribe].
+     */
+    @Volatile
+    var updateCoalescingPolicy: UpdateCoalescingPolicy =
+            UpdateCoalescingPolicies.debounce(2, 32, TimeUnit.MILLISECONDS)
+
+    @Volatile
+    private var activeCoalescingPolicy = updateCoalescingPolicy
+
+    /**
+     * True to count the items sharing their id with another item in each generation, see [idCollisionCount].
+     * Reads the id of every item of each generation, so it is meant for debug builds.
+     */
+    @Volatile
+    var detectIdCollisions = false
+
+    @Volatile
+    private var lastIdCollisionCount = 0
+
+    /**
+     * Number of items that shared their id with an earlier item in the last generation checked by
+     * [detectIdCollisions]. Colliding ids confuse RecyclerView's stable id caches.
+     */
+    val idCollisionCount: Int
+        get() = lastIdCollisionCount
+
+    private val appliedGenerations = AtomicLong(0)
+    private val coalescedGenerations = AtomicLong(0)
+    private var lastAppliedGeneration = 0L
+
+    /**
+     * Number of generations of section updates that have been dispatched to the RecyclerView.
+     */
+    val appliedGenerationCount: Long
+        get() = appliedGenerations.get()
+
+    /**
+     * Number of generations of section updates that were replaced by a newer generation before they could be
+     * dispatched to the RecyclerView.
+     */
+    val coalescedGenerationCount: Long
+        get() = coalescedGenerations.get()
+
     fun subscribe(): Disposable {
+        val policy = updateCoalescingPolicy
+        activeCoalescingPolicy = policy
         return sectionsSource
             .observeOn(computationScheduler)
             .switchMap(::combineSections)
-            .debounce(2, TimeUnit.MILLISECONDS, computationScheduler)
+            .let { policy.coalesce(it, computationScheduler) }
             .map(::calculateDiff)
-            .filter { it.diff != null }
+            .filter { it.updates != null }
             .observeOn(mainThreadScheduler)
             .doOnDispose {
                 disposables.dispose()
+                pendingPrecompute.set(null)
+                precomputer.clear()
                 sectionsSource.onNext(emptyList())
                 onDispose()
             }
@@ -108,6 +182,10 @@ open class ObservableViewModelSectionAdapter
 
     private fun combineSections(sections: List<ObservableSectionController>): Observable<ItemUpdates> {
         val modelSources = sections.mapIndexed { sectionIndex, section ->
+            // The section's previous emission. Only read and written by this section's map, one emission at a
+            // time.
+            var previous: SectionItems? = null
+
             // Associate each ViewModel with its section
             section.getViewModels()
                     .map { it as Seekable<AdapterViewModel> }
@@ -115,17 +193,10 @@ open class ObservableViewModelSectionAdapter
                     .observeOn(computationScheduler)
                     .map { models -> trace("section:$sectionIndex") {
                         if (models === emptySeekable) {
-                            emptySeekable
+                            SectionItems.notLoaded(section)
                         } else {
-                            ListSeekable(models.map { model ->
-                                val viewTypeId = viewFactory.getViewTypeId(model.type)
-                                SectionItemInfo(
-                                        section,
-                                        model,
-                                        viewTypeId,
-                                        createUniqueId(model, viewTypeId, sectionIndex)
-                                )
-                            })
+                            createSectionItems(section, sectionIndex, models, previous, appliedSectionIds[section])
+                                    .also { previous = it }
                         }
                     } }
                 .doOnError { sectionErrorHandler?.onError(section.javaClass, it) }
@@ -133,14 +204,16 @@ open class ObservableViewModelSectionAdapter
 
         return combineLatest(modelSources) { array ->
             var currentGen = 0L
-            var currentData: Seekable<SectionItemInfo> = Seekables.empty()
+            var currentData = SectionItemTable.EMPTY
+
+            val sources = array.toList() as List<SectionItems>
 
             // If results have not come back from any sections, don't notify the adapter
-            val hasResults = array.isNotEmpty() &&
-                    if (loadSectionsInOrder) array[0] !== emptySeekable
-                    else array.any { it !== emptySeekable }
+            val hasResults = sources.isNotEmpty() &&
+                    if (loadSectionsInOrder) sources[0].isLoaded
+                    else sources.any { it.isLoaded }
             if (!hasResults) {
-                return@combineLatest ItemUpdates(Seekables.empty(), Seekables.empty(), -1)
+                return@combineLatest ItemUpdates(SectionItemTable.EMPTY, emptyList(), -1)
             }
 
             // Increment the generation counter and diff against the current main-thread data.
@@ -151,52 +224,231 @@ open class ObservableViewModelSectionAdapter
                 currentData = mainThreadData.get()
             }
 
-            val sources = array.toList() as List<Seekable<SectionItemInfo>>
-            val included = if (loadSectionsInOrder) sources.takeWhile { (it !== emptySeekable) } else sources
-            val results = Seekables.concat(included)
-            ItemUpdates(currentData, results, currentGen)
+            val included = if (loadSectionsInOrder) sources.takeWhile { it.isLoaded } else sources
+            ItemUpdates(currentData, included, currentGen)
+        }
+    }
+
+    private fun createSectionItems(
+        section: ObservableSectionController,
+        sectionIndex: Int,
+        models: Seekable<AdapterViewModel>,
+        previous: SectionItems?,
+        appliedIds: UniqueIdComposer.SectionIds?
+    ): SectionItems {
+        // Items keep the ids they have in the previous emission, or in the displayed one if the previous emission
+        // was coalesced away.
+        val ids = uniqueIdComposer.newSectionIds(previous?.ids, appliedIds)
+        if (section.loadsItemsLazily()) {
+            return LazySectionItems(
+                    section, models, SectionItemInfo(sectionIndex, ids), ids, previous as? LazySectionItems)
+        }
+        val count = models.size()
+        val modelArray = Array(count) { models[it] }
+        val viewTypeIds = IntArray(count)
+        val uniqueIds = LongArray(count)
+        for (i in 0 until count) {
+            val model = modelArray[i]
+            val viewTypeId = viewFactory.getViewTypeId(model.type)
+            viewTypeIds[i] = viewTypeId
+            uniqueIds[i] = ids.compose(model.id, viewTypeId, sectionIndex)
         }
+        ids.seal()
+        return ArraySectionItems(section, modelArray, viewTypeIds, uniqueIds, true, ids)
     }
 
     /**
-     * Generates a unique id for a model, for use by RecyclerView.Adapter's stableIds.
+     * Generates unique ids for models, for use by RecyclerView.Adapter's stableIds.
      * The data model id must be unique for a given viewType and section. This means
      * a data model can have the same id as long as the viewTypes are different-- useful
      * when using a database rowId to represent different types of data in the same RecyclerView,
      * also allowing a model to be used across sections, even with matching viewType.
+     * See [UniqueIdComposer] for how model ids wider than 40 bits are handled.
      */
-    private fun createUniqueId(model: AdapterViewModel, viewTypeId: Int, sectionId: Int): Long {
-        return model.id xor (sectionId.toLong() shl 40) xor (viewTypeId.toLong() shl 52)
+    private inner class SectionItemInfo(
+        private val sectionIndex: Int,
+        private val ids: UniqueIdComposer.SectionIds
+    ) : ItemInfoResolver {
+        override fun viewTypeId(model: AdapterViewModel) = viewFactory.getViewTypeId(model.type)
+
+        override fun uniqueId(model: AdapterViewModel, viewTypeId: Int) =
+                ids.compose(model.id, viewTypeId, sectionIndex)
     }
 
     private fun calculateDiff(updates: ItemUpdates): SectionUpdates {
-        val diff = if (updates.generation == generation.get()) {
-            val callback = DiffUtilCallback(updates.old, updates.data)
-            trace("diff:calc") { DiffUtil.calculateDiff(callback, false) }
+        if (updates.generation != generation.get()) {
+            return SectionUpdates(SectionItemTable.EMPTY, null, updates.generation, PrecomputeWindow.EMPTY, emptyMap())
+        }
+        val start = System.nanoTime()
+        val old = updates.old
+        val data = recycledTable.getAndSet(null) ?: SectionItemTable()
+        trace("diff:fill") { data.fill(updates.sections) }
+        if (detectIdCollisions) {
+            lastIdCollisionCount = UniqueIdComposer.countDuplicates(data.uniqueIds(), data.size)
+        }
+
+        val batch = ItemUpdateBatch()
+        if (hasSameSections(old, data)) {
+            trace("diff:sections") { diffChangedSections(old, data, batch) }
         } else {
-            null
+            trace("diff:calc") { diffRange(old, 0, old.size, data, 0, data.size, false, batch) }
+        }
+        val anchor = if (old.size == 0) 0 else batch.trackPosition(Math.min(lastBoundPosition, old.size - 1))
+        val window = trace("diff:window") { precomputeWindow(anchor, data) }
+        activeCoalescingPolicy.onUpdateDiffed(System.nanoTime() - start)
+        return SectionUpdates(data, batch, updates.generation, window, sectionIds(updates.sections))
+    }
+
+    private fun sectionIds(
+        sections: List<SectionItems>
+    ): Map<ObservableSectionController, UniqueIdComposer.SectionIds> {
+        val ids = IdentityHashMap<ObservableSectionController, UniqueIdComposer.SectionIds>(sections.size)
+        for (items in sections) {
+            items.ids?.let { ids[items.section] = it }
+        }
+        return ids
+    }
+
+    /**
+     * Copies at most [PRECOMPUTED_PER_GENERATION] items of [data], in a window centered on [anchor], where the
+     * RecyclerView is most likely to bind next. They are copied since the table may be recycled before they are
+     * precomputed.
+     */
+    private fun precomputeWindow(anchor: Int, data: SectionItemTable): PrecomputeWindow {
+        val count = Math.min(PRECOMPUTED_PER_GENERATION, data.size)
+        val start = Math.max(0, Math.min(anchor - count / 2, data.size - count))
+        return PrecomputeWindow(Array(count) { data.model(start + it) }, LongArray(count) { data.uniqueId(start + it) })
+    }
+
+    /**
+     * Precomputes [window] on a computation thread once the generation it belongs to is dispatched, so that the
+     * updates are never delayed by binding work. Only applied generations are precomputed, and a window not
+     * started yet is replaced by the next one.
+     */
+    @MainThread
+    private fun schedulePrecompute(window: PrecomputeWindow) {
+        if (window.models.isEmpty() || pendingPrecompute.getAndSet(window) != null) {
+            return
+        }
+        computationScheduler.scheduleDirect {
+            val pending = pendingPrecompute.getAndSet(null) ?: return@scheduleDirect
+            trace("precompute") {
+                for (i in 0 until pending.models.size) {
+                    precomputer.precompute(pending.models[i], pending.uniqueIds[i])
+                }
+            }
+        }
+    }
+
+    private fun hasSameSections(old: SectionItemTable, new: SectionItemTable): Boolean {
+        if (old.sections.size != new.sections.size) {
+            return false
+        }
+        for (i in 0 until old.sections.size) {
+            if (old.sections[i].section !== new.sections[i].section) {
+                return false
+            }
         }
-        return SectionUpdates(updates.data, diff, updates.generation)
+        return true
+    }
+
+    /**
+     * Diffs only the sections that emitted since the [old] generation; a section that did not emit
+     * keeps the same [SectionItems] instance, and a lazy section that describes its changes is only
+     * diffed where it changed. Sections are diffed from last to first, so the updates recorded for
+     * one section never shift the positions of the sections recorded after it.
+     */
+    private fun diffChangedSections(old: SectionItemTable, new: SectionItemTable, batch: ItemUpdateBatch) {
+        for (i in old.sections.size - 1 downTo 0) {
+            val oldItems = old.sections[i]
+            val newItems = new.sections[i]
+            if (oldItems === newItems) {
+                continue
+            }
+            val changes = (newItems as? LazySectionItems)?.changesSince(oldItems)
+            if (changes != null) {
+                diffRange(
+                        old, old.sectionOffset(i) + changes.changeStart, changes.removedCount,
+                        new, new.sectionOffset(i) + changes.changeStart, changes.insertedCount,
+                        newItems.section.hasStableItemOrder(),
+                        batch
+                )
+            } else {
+                diffRange(
+                        old, old.sectionOffset(i), oldItems.size,
+                        new, new.sectionOffset(i), newItems.size,
+                        newItems.section.hasStableItemOrder(),
+                        batch
+                )
+            }
+        }
+    }
+
+    /**
+     * Diffs a range of the old table against a range of the new table. Pure insertions and removals, such as
+     * appended pages, are recognized in linear time; so are arbitrary updates to ranges with a
+     * [stableItemOrder]. Anything else falls back to [DiffUtil].
+     */
+    private fun diffRange(
+        old: SectionItemTable,
+        oldStart: Int,
+        oldCount: Int,
+        new: SectionItemTable,
+        newStart: Int,
+        newCount: Int,
+        stableItemOrder: Boolean,
+        batch: ItemUpdateBatch
+    ) {
+        val callback = DiffUtilCallback(old, oldStart, oldCount, new, newStart, newCount)
+        if (batch.record(oldStart) { LinearDiff.diffSingleRun(callback, it) }) {
+            return
+        }
+        if (stableItemOrder && batch.record(oldStart) { LinearDiff.diffStableOrder(callback, callback, it) }) {
+            return
+        }
+        batch.add(DiffUtil.calculateDiff(callback, false), oldStart)
     }
 
     @MainThread
     private fun applyAdapterUpdates(info: SectionUpdates) {
-        if (info.diff != null) {
-            val current = synchronized(generation) {
+        if (info.updates != null) {
+            val previous = synchronized(generation) {
                 if (info.generation == generation.get()) {
-                    mainThreadData.set(info.data)
-                    true
+                    mainThreadData.getAndSet(info.data)
                 } else {
-                    false
+                    null
                 }
             }
-            if (current) {
-                mainThreadData.set(info.data)
-                info.diff.dispatchUpdatesTo(this)
+            if (previous != null) {
+                // Generations are numbered consecutively, so every generation since the last applied one was replaced.
+                coalescedGenerations.addAndGet(info.generation - lastAppliedGeneration - 1)
+                appliedGenerations.incrementAndGet()
+                lastAppliedGeneration = info.generation
+                appliedData = info.data
+                appliedItemCount = info.data.size
+                appliedSectionIds = info.sectionIds
+
+                info.updates.dispatchUpdatesTo(this)
+                recycleTable(previous)
+                schedulePrecompute(info.precompute)
+            } else {
+                recycleTable(info.data)
             }
         }
     }
 
+    /**
+     * Offers a table that is no longer read by the main thread or by any diff for reuse.
+     * A table only becomes unreachable on the main thread, after a newer generation has been
+     * applied or after its own generation was found to be stale.
+     */
+    @MainThread
+    private fun recycleTable(table: SectionItemTable) {
+        if (table !== SectionItemTable.EMPTY) {
+            recycledTable.set(table)
+        }
+    }
+
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): ViewModelViewHolder<in AdapterViewModel> {
         try {
             return viewFactory.createViewHolder(parent.context, viewType, parent)
@@ -209,10 +461,29 @@ open class ObservableViewModelSectionAdapter
     }
 
     override fun onBindViewHolder(holder: ViewModelViewHolder<in AdapterViewModel>, position: Int) {
+        bind(holder, position, emptyList())
+    }
+
+    override fun onBindViewHolder(
+        holder: ViewModelViewHolder<in AdapterViewModel>,
+        position: Int,
+        payloads: MutableList<Any>
+    ) {
+        bind(holder, position, payloads)
+    }
+
+    private fun bind(holder: ViewModelViewHolder<in AdapterViewModel>, position: Int, payloads: List<Any>) {
         try {
             TraceCompat.beginSection("RC:bind")
-            val info = mainThreadData.get()[position]
-            holder.bind(info.model, eventDispatcher, info.section)
+            val data = appliedData
+            val model = data.model(position)
+            lastBoundPosition = position
+            precomputer.prepare(holder, model, data.uniqueId(position))
+            if (payloads.isEmpty()) {
+                holder.bind(model, eventDispatcher, data.section(position))
+            } else {
+                holder.bind(model, eventDispatcher, data.section(position), payloads)
+            }
         } catch (e: Exception) {
             errorHandler?.let {
                 errorHandler.onError(e, AdapterErrorInfo(position))
@@ -222,17 +493,17 @@ open class ObservableViewModelSectionAdapter
         }
     }
 
-    override fun getItemCount() = mainThreadData.get().size()
+    override fun getItemCount() = appliedItemCount
 
-    override fun getItemId(position: Int) = mainThreadData.get()[position].itemUniqueId
+    override fun getItemId(position: Int) = appliedData.uniqueId(position)
 
-    override fun getItemAdapterViewType(position: Int) = mainThreadData.get()[position].model.type
+    override fun getItemAdapterViewType(position: Int) = appliedData.model(position).type
 
-    override fun getItemViewType(position: Int) = mainThreadData.get()[position].itemViewType
+    override fun getItemViewType(position: Int) = appliedData.viewTypeId(position)
 
-    override fun getItemViewModel(position: Int) = mainThreadData.get()[position].model
+    override fun getItemViewModel(position: Int) = appliedData.model(position)
 
-    fun getItemSection(position: Int) = mainThreadData.get()[position].section
+    fun getItemSection(position: Int) = appliedData.section(position)
 
     override fun onViewRecycled(holder: ViewModelViewHolder<in AdapterViewModel>) {
         try {
@@ -255,55 +526,69 @@ open class ObservableViewModelSectionAdapter
         }
     }
 
-    class SectionItemInfo(
-        val section: ObservableSectionController,
-        val model: AdapterViewModel,
-        val itemViewType: Int,
-        val itemUniqueId: Long
-    )
-
-    class ItemUpdates(
-        val old: Seekable<SectionItemInfo>,
-        val data: Seekable<SectionItemInfo>,
+    internal class ItemUpdates(
+        val old: SectionItemTable,
+        val sections: List<SectionItems>,
         val generation: Long
     )
 
-    // A Null DiffResult means the section updates did not complete.
-    class SectionUpdates(
-        val data: Seekable<SectionItemInfo>,
-        val diff: DiffUtil.DiffResult?,
-        val generation: Long
+    // Null updates mean the section updates did not complete.
+    internal class SectionUpdates(
+        val data: SectionItemTable,
+        val updates: ItemUpdateBatch?,
+        val generation: Long,
+        val precompute: PrecomputeWindow,
+        val sectionIds: Map<ObservableSectionController, UniqueIdComposer.SectionIds>
     )
 
+    internal class PrecomputeWindow(val models: Array<AdapterViewModel>, val uniqueIds: LongArray) {
+        companion object {
+            val EMPTY = PrecomputeWindow(emptyArray(), LongArray(0))
+        }
+    }
+
+    /**
+     * Diffs the range of [oldCount] items at [oldStart] in the old table against
+     * the range of [newCount] items at [newStart] in the new table.
+     */
     private class DiffUtilCallback(
-        val oldModels: Seekable<SectionItemInfo>,
-        val newModels: Seekable<SectionItemInfo>
-    ) : DiffUtil.Callback() {
+        val oldItems: SectionItemTable,
+        val oldStart: Int,
+        val oldCount: Int,
+        val newItems: SectionItemTable,
+        val newStart: Int,
+        val newCount: Int
+    ) : DiffUtil.Callback(), ItemIds {
 
         override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int): Boolean {
-            val oldItem = oldModels[oldItemPosition]
-            val newItem = newModels[newItemPosition]
-            if (oldItem.section !== newItem.section) {
+            val oldPosition = oldStart + oldItemPosition
+            val newPosition = newStart + newItemPosition
+            if (oldItems.section(oldPosition) !== newItems.section(newPosition)) {
                 return false
             }
 
-            return oldItem.model.areItemsTheSame(newItem.model)
+            return oldItems.model(oldPosition).areItemsTheSame(newItems.model(newPosition))
         }
 
-        override fun getOldListSize() = oldModels.size()
+        override fun getOldListSize() = oldCount
 
-        override fun getNewListSize() = newModels.size()
+        override fun getNewListSize() = newCount
 
         override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int): Boolean {
             // DiffUtil does not respect the contract of calling
             // areContentsTheSame only when areItemsTheSame returns true
             // cf https://issuetracker.google.com/issues/123376278
-            val firstModel = oldModels[oldItemPosition].model
-            val secondModel = newModels[newItemPosition].model
-            return firstModel.areItemsTheSame(secondModel) && firstModel.areContentsTheSame(secondModel)
+            val firstModel = oldItems.model(oldStart + oldItemPosition)
+            val secondModel = newItems.model(newStart + newItemPosition)
+            return firstModel.areItemsTheSame(secondModel) && firstModel.hasSameContents(secondModel)
         }
 
-        override fun getChangePayload(oldItemPosition: Int, newItemPosition: Int) = oldModels[oldItemPosition]
+        override fun getChangePayload(oldItemPosition: Int, newItemPosition: Int) =
+                oldItems.model(oldStart + oldItemPosition)
+
+        override fun oldItemId(oldItemPosition: Int) = oldItems.uniqueId(oldStart + oldItemPosition)
+
+        override fun newItemId(newItemPosition: Int) = newItems.uniqueId(newStart + newItemPosition)
     }
 
     private val mAttachPublisher = PublishSubject.create<AttachToRecyclerViewEvent>()
@@ -325,6 +610,12 @@ open class ObservableViewModelSectionAdapter
     }
 }
 
+// Enough for a few screens of items, so precomputed results survive until their items are bound.
+private const val PRECOMPUTED_CACHE_SIZE = 512
+
+// Half the cache, so a generation's results don't evict those of the one before it, which may still be bound.
+private const val PRECOMPUTED_PER_GENERATION = PRECOMPUTED_CACHE_SIZE / 2
+
 /** Captures a given block of code using TraceCompat, for Systrace and S2R. */
 private inline fun <R> trace(sectionName: String, section: () -> R): R {
     TraceCompat.beginSection(sectionName)
@@ -0,0 +1,125 @@
+package com.snap.ui.recycling.adapter;
+
+import com.snap.ui.recycling.SectionController;
+import com.snap.ui.recycling.viewmodel.AdapterViewModel;
+import com.snap.ui.seeking.Seekable;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The sections of a {@link ViewModelSectionAdapterInternal} in adapter order, with the position of the first item
+ * of each section, so that a position resolves to its section with a binary search. Replacing the views of one
+ * section only shifts the offsets of the sections after it.
+ */
+final class SectionIndex {
+
+    private SectionController[] controllers = new SectionController[4];
+    private Seekable<?>[] views = new Seekable<?>[4];
+    // offsets[i] is the position of the first item of section i; offsets[count] is the item count.
+    private int[] offsets = new int[5];
+    private int count;
+
+    int getSectionCount() {
+        return count;
+    }
+
+    int getItemCount() {
+        return offsets[count];
+    }
+
+    /**
+     * Returns the index of {@code controller}, or -1 if it is not a section.
+     */
+    int indexOf(SectionController controller) {
+        for (int i = 0; i < count; i++) {
+            if (controllers[i] == controller) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the section containing {@code position}, which must be within bounds. Empty sections
+     * share their offset with the next section, so this finds the last section starting at or before position.
+     */
+    int sectionIndexAt(int position) {
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    SectionController getController(int index) {
+        return controllers[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    Seekable<AdapterViewModel> getViews(int index) {
+        return (Seekable<AdapterViewModel>) views[index];
+    }
+
+    /**
+     * Position of the first item of the section at {@code index}. Passing the section count returns the item count.
+     */
+    int getOffset(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Replaces the views of the section at {@code index}.
+     */
+    void set(int index, Seekable<AdapterViewModel> sectionViews) {
+        int delta = sectionViews.size() - (offsets[index + 1] - offsets[index]);
+        views[index] = sectionViews;
+        if (delta != 0) {
+            for (int i = index + 1; i <= count; i++) {
+                offsets[i] += delta;
+            }
+        }
+    }
+
+    void add(SectionController controller, Seekable<AdapterViewModel> sectionViews) {
+        if (count == controllers.length) {
+            controllers = Arrays.copyOf(controllers, count * 2);
+            views = Arrays.copyOf(views, count * 2);
+            offsets = Arrays.copyOf(offsets, count * 2 + 1);
+        }
+        controllers[count] = controller;
+        views[count] = sectionViews;
+        offsets[count + 1] = offsets[count] + sectionViews.size();
+        count++;
+    }
+
+    void remove(int index) {
+        int size = offsets[index + 1] - offsets[index];
+        System.arraycopy(controllers, index + 1, controllers, index, count - index - 1);
+        System.arraycopy(views, index + 1, views, index, count - index - 1);
+        for (int i = index + 1; i <= count; i++) {
+            offsets[i - 1] = offsets[i] - size;
+        }
+        count--;
+        controllers[count] = null;
+        views[count] = null;
+    }
+
+    /**
+     * Replaces all sections with {@code sections}, in iteration order.
+     */
+    void reset(Map<SectionController, Seekable<AdapterViewModel>> sections) {
+        Arrays.fill(controllers, 0, count, null);
+        Arrays.fill(views, 0, count, null);
+        count = 0;
+        for (Map.Entry<SectionController, Seekable<AdapterViewModel>> entry : sections.entrySet()) {
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.snap.ui.recycling.adapter
+
+import com.snap.ui.recycling.LazySectionChanges
+import com.snap.ui.recycling.ObservableSectionController
+import com.snap.ui.recycling.viewmodel.AdapterViewModel
+import com.snap.ui.seeking.Seekable
+import java.util.Arrays
+import java.util.concurrent.atomic.AtomicReferenceArray
+import java.util.concurrent.locks.ReentrantLock
+
+/**
+ * The items emitted by a single section, with their view type ids and adapter unique ids.
+ */
+internal abstract class SectionItems(
+    val section: ObservableSectionController,
+    /** False until the section has emitted its first results. */
+    val isLoaded: Boolean,
+    /** Maps the model ids of this emission that can't be packed into unique ids, if the adapter tracks them. */
+    val ids: UniqueIdComposer.SectionIds?
+) {
+    abstract val size: Int
+
+    abstract fun model(index: Int): AdapterViewModel
+
+    abstract fun viewTypeId(index: Int): Int
+
+    abstract fun uniqueId(index: Int): Long
+
+    companion object {
+        private val NO_MODELS = arrayOf<AdapterViewModel>()
+
+        fun notLoaded(section: ObservableSectionController): SectionItems =
+                ArraySectionItems(section, NO_MODELS, IntArray(0), LongArray(0), false, null)
+    }
+}
+
+/**
+ * Section items computed once per emission, which [SectionItemTable] copies into its own arrays.
+ */
+internal class ArraySectionItems(
+    section: ObservableSectionController,
+    val models: Array<AdapterViewModel>,
+    val viewTypeIds: IntArray,
+    val uniqueIds: LongArray,
+    isLoaded: Boolean,
+    ids: UniqueIdComposer.SectionIds? = null
+) : SectionItems(section, isLoaded, ids) {
+
+    override val size: Int
+        get() = models.size
+
+    override fun model(index: Int) = models[index]
+
+    override fun viewTypeId(index: Int) = viewTypeIds[index]
+
+    override fun uniqueId(index: Int) = uniqueIds[index]
+}
+
+/**
+ * Computes the view type id and unique id of the items of one section.
+ */
+internal interface ItemInfoResolver {
+    fun viewTypeId(model: AdapterViewModel): Int
+
+    fun uniqueId(model: AdapterViewModel, viewTypeId: Int): Long
+}
+
+/**
+ * Section items read from the section's [Seekable] on demand, in chunks of [CHUNK_SIZE] items that are kept
+ * once read. Creating them is O(1), and a diff or a scroll only pays for the chunks it touches. If the source
+ * describes its [LazySectionChanges], chunks before the changed items are taken from the section's previous
+ * emission where it has read them.
+ *
+ * Chunks may be requested from the computation thread and the main thread at once. Chunks are read one at a
+ * time; a thread that finds another one reading a chunk reads the single item it needs from the source instead
+ * of waiting for the whole chunk. How long that read takes is up to the source: a windowed
+ * [com.snap.ui.seeking.CursorSeekable] waits for at most the row being read.
+ */
+internal class LazySectionItems(
+    section: ObservableSectionController,
+    private val source: Seekable<AdapterViewModel>,
+    private val resolver: ItemInfoResolver,
+    ids: UniqueIdComposer.SectionIds? = null,
+    previousItems: LazySectionItems? = null
+) : SectionItems(section, true, ids) {
+
+    private class Chunk(
+        val models: Array<AdapterViewModel>,
+        val viewTypeIds: IntArray,
+        val uniqueIds: LongArray
+    )
+
+    override val size = source.size()
+
+    private val chunks = AtomicReferenceArray<Chunk>((size + CHUNK_SIZE - 1) ushr CHUNK_SHIFT)
+
+    private val loadLock = ReentrantLock()
+
+    private val changes = source as? LazySectionChanges
+
+    // The section's previous emission, which [changes] are relative to. Dropped once a later emission is created,
+    // so that emissions don't keep each other reachable.
+    @Volatile
+    private var previous: LazySectionItems? = previousItems?.also { it.previous = null }
+
+    /** Number of chunks read from the source so far. */
+    @Volatile
+    var loadedChunkCount = 0
+        private set
+
+    override fun model(index: Int) = chunk(index)?.models?.get(index and CHUNK_MASK) ?: source[index]
+
+    override fun viewTypeId(index: Int): Int {
+        val chunk = chunk(index) ?: return resolver.viewTypeId(source[index])
+        return chunk.viewTypeIds[index and CHUNK_MASK]
+    }
+
+    override fun uniqueId(index: Int): Long {
+        val chunk = chunk(index)
+        if (chunk == null) {
+            val model = source[index]
+            return resolver.uniqueId(model, resolver.viewTypeId(model))
+        }
+        return chunk.uniqueIds[index and CHUNK_MASK]
+    }
+
+    /**
+     * Returns the [LazySectionChanges] of this emission if [old] is the section's previous emission and the
+     * changes agree with both sizes, or null if the whole section has to be diffed.
+     */
+    fun changesSince(old: SectionItems): LazySectionChanges? {
+        val changes = changes ?: return null
+        if (old !== previous) {
+            return null
+        }
+        val start = changes.changeStart
+        val removed = changes.removedCount
+        val inserted = changes.insertedCount
+        val consistent = start >= 0 && removed >= 0 && inserted >= 0 &&
+                start + removed <= old.size && start + inserted <= size &&
+                old.size - removed == size - inserted
+        return if (consistent) changes else null
+    }
+
+    /**
+     * Returns the chunk holding [index], or null if another thread is reading a chunk.
+     */
+    private fun chunk(index: Int): Chunk? {
+        if (index < 0 || index >= size) {
+            throw IndexOutOfBoundsException("Invalid index $index, size is $size")
+        }
+        val chunkIndex = index ushr CHUNK_SHIFT
+        chunks.get(chunkIndex)?.let { return it }
+        if (!loadLock.tryLock()) {
+            return null
+        }
+        try {
+            return chunks.get(chunkIndex) ?: loadChunk(chunkIndex)
+        } finally {
+            loadLock.unlock()
+        }
+    }
+
+    private fun loadChunk(chunkIndex: Int): Chunk {
+        val start = chunkIndex shl CHUNK_SHIFT
+        val count = Math.min(CHUNK_SIZE, size - start)
+        val reused = previousChunk(chunkIndex, start + count)
+        val models = reused?.models ?: Array(count) { source[start + it] }
+        val viewTypeIds = reused?.viewTypeIds ?: IntArray(count) { resolver.viewTypeId(models[it]) }
+        // Resolved even for a reused chunk, so that this emission's ids carry them over.
+        val uniqueIds = LongArray(count) { resolver.uniqueId(models[it], viewTypeIds[it]) }
+        val chunk = Chunk(models, viewTypeIds, uniqueIds)
+        chunks.set(chunkIndex, chunk)
+        if (reused == null) {
+            loadedChunkCount++
+        }
+        return chunk
+    }
+
+    /**
+     * Returns the previous emission's chunk at [chunkIndex] if it has been read and all its items, up to [end],
+     * come before the changed items.
+     */
+    private fun previousChunk(chunkIndex: Int, end: Int): Chunk? {
+        val changes = changes ?: return null
+        val previous = previous ?: return null
+        if (end > changes.changeStart) {
+            return null
+        }
+        val chunk = previous.chunks.get(chunkIndex) ?: return null
+        return if (chunk.models.size == end - (chunkIndex shl CHUNK_SHIFT)) chunk else null
+    }
+
+    companion object {
+        private const val CHUNK_SHIFT = 8
+        const val CHUNK_SIZE = 1 shl CHUNK_SHIFT
+        private const val CHUNK_MASK = CHUNK_SIZE - 1
+    }
+}
+
+/**
+ * The items of one [ObservableViewModelSectionAdapter] generation, laid out as parallel arrays
+ * so that per-position lookups read primitives instead of dereferencing an object per item.
+ * Items of [LazySectionItems] are not copied; lookups in their range go to the section instead.
+ *
+ * A table is filled on the computation thread and then handed to the main thread. Once the main
+ * thread replaces it with a newer generation, the adapter recycles it for a later generation,
+ * so the arrays are reused instead of being reallocated on every section update.
+ */
+internal class SectionItemTable {
+
+    var size = 0
+        private set
+
+    /** The sections of this generation, in adapter order. */
+    var sections: List<SectionItems> = emptyList()
+        private set
+
+    // Items of array-backed sections. When there are lazy sections, array indices differ from positions.
+    private var viewTypeIds = IntArray(0)
+    private var uniqueIds = LongArray(0)
+    private var sectionIndices = IntArray(0)
+    private var models = arrayOfNulls<AdapterViewModel>(0)
+    private var arraySize = 0
+
+    // sectionOffsets[i] is the position of the first item of sections[i]; sectionOffsets[sections.size] is size.
+    private var sectionOffsets = IntArray(1)
+
+    // arrayOffsets[i] is the array index of the first item of sections[i], or -1 if it is lazy.
+    private var arrayOffsets = IntArray(1)
+    private var hasLazySections = false
+
+    /**
+     * Replaces the contents of this table with the items of [sections].
+     */
+    fun fill(sections: List<SectionItems>) {
+        var total = 0
+        var arrayTotal = 0
+        for (items in sections) {
+            total += items.size
+            if (items is ArraySectionItems) {
+                arrayTotal += items.size
+            }
+        }
+        ensureCapacity(arrayTotal)
+        if (sectionOffsets.size < sections.size + 1) {
+            sectionOffsets = IntArray(sections.size + 1)
+            arrayOffsets = IntArray(sections.size + 1)
+        }
+
+        var offset = 0
+        var arrayOffset = 0
+        for (sectionIndex in 0 until sections.size) {
+            val items = sections[sectionIndex]
+            val count = items.size
+            sectionOffsets[sectionIndex] = offset
+            offset += count
+            if (items !is ArraySectionItems) {
+                arrayOffsets[sectionIndex] = -1
+                continue
+            }
+            arrayOffsets[sectionIndex] = arrayOffset
+            System.arraycopy(items.viewTypeIds, 0, viewTypeIds, arrayOffset, count)
+            System.arraycopy(items.uniqueIds, 0, uniqueIds, arrayOffset, count)
+            System.arraycopy(items.models, 0, models, arrayOffset, count)
+            Arrays.fill(sectionIndices, arrayOffset, arrayOffset + count, sectionIndex)
+            arrayOffset += count
+        }
+        sectionOffsets[sections.size] = total
+        arrayOffsets[sections.size] = arrayTotal
+
+        // Don't hold on to models from an older generation.
+        if (arrayTotal < arraySize) {
+            Arrays.fill(models, arrayTotal, arraySize, null)
+        }
+        arraySize = arrayTotal
+        hasLazySections = arrayTotal != total
+        size = total
+        this.sections = sections
+    }
+
+    /**
+     * Position of the first item of the section at [sectionIndex].
+     */
+    fun sectionOffset(sectionIndex: Int) = sectionOffsets[sectionIndex]
+
+    fun viewTypeId(position: Int): Int {
+        checkPosition(position)
+        if (!hasLazySections) {
+            return viewTypeIds[position]
+        }
+        val sectionIndex = sectionIndexAt(position)
+        val index = position - sectionOffsets[sectionIndex]
+        val arrayOffset = arrayOffsets[sectionIndex]
+        return if (arrayOffset < 0) sections[sectionIndex].viewTypeId(index) else viewTypeIds[arrayOffset + index]
+    }
+
+    fun uniqueId(position: Int): Long {
+        checkPosition(position)
+        if (!hasLazySections) {
+            return uniqueIds[position]
+        }
+        val sectionIndex = sectionIndexAt(position)
+        val index = position - sectionOffsets[sectionIndex]
+        val arrayOffset = arrayOffsets[sectionIndex]
+        return if (arrayOffset < 0) sections[sectionIndex].uniqueId(index) else uniqueIds[arrayOffset + index]
+    }
+
+    /**
+     * The ids of all items, in a new array.
+     */
+    fun uniqueIds() = if (hasLazySections) LongArray(size) { uniqueId(it) } else uniqueIds.copyOf(size)
+
+    fun model(position: Int): AdapterViewModel {
+        checkPosition(position)
+        if (!hasLazySections) {
+            return models[position]!!
+        }
+        val sectionIndex = sectionIndexAt(position)
+        val index = position - sectionOffsets[sectionIndex]
+        val arrayOffset = arrayOffsets[sectionIndex]
+        return if (arrayOffset < 0) sections[sectionIndex].model(index) else models[arrayOffset + index]!!
+    }
+
+    fun section(position: Int): ObservableSectionController {
+        checkPosition(position)
+        val sectionIndex = if (hasLazySections) sectionIndexAt(position) else sectionIndices[position]
+        return sections[sectionIndex].section
+    }
+
+    /**
+     * Returns the index of the section containing [position], which must be within bounds. Empty sections
+     * share their offset with the next section, so this finds the last section starting at or before [position].
+     */
+    private fun sectionIndexAt(position: Int): Int {
+        var low = 0
+        var high = sections.size - 1
+        while (low < high) {
+            val mid = (low + high + 1) ushr 1
+            if (sectionOffsets[mid] <= position) {
+                low = mid
+            } else {
+                high = mid - 1
+            }
+        }
+        return low
+    }
+
+    private fun ensureCapacity(capacity: Int) {
+        if (viewTypeIds.size >= capacity) {
+            return
+        }
+        // Leave some headroom, since feeds tend to grow.
+        val newCapacity = capacity + (capacity shr 2)
+        viewTypeIds = IntArray(newCapacity)
+        uniqueIds = LongArray(newCapacity)
+        sectionIndices = IntArray(newCapacity)
+        models = arrayOfNulls(newCapacity)
+        // The new arrays hold no models, so there is nothing to clear beyond the new size.
+        arraySize = 0
+    }
+
+    private fun checkPosition(position: Int) {
+        if (position < 0 || position >= size) {
+            throw IndexOutOfBoundsException("Invalid position $position, size is $size")
+        }
+    }
+
+    companion object {
+        /**
+         * A table with no items. It is shared, so it is never filled or recycled.
+         */
+        val EMPTY = SectionItemTable()
+    }
+}
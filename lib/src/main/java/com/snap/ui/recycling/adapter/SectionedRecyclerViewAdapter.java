@@ -15,6 +15,7 @@ import com.snap.ui.recycling.viewmodel.AdapterViewModel;
 import com.snap.ui.seeking.Seekable;
 import com.snap.ui.seeking.Seekables;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
 
 import java.util.List;
 
@@ -63,6 +64,33 @@ public class SectionedRecyclerViewAdapter implements ViewModelAdapter {
         adapter.setAsyncBinding(asyncBinding);
     }
 
+    /**
+     * Caches the view model, view type and id of up to {@code size} recently used positions, which helps when
+     * reading items from the sections' Seekables is expensive. Disabled by default, since positions are resolved
+     * with a binary search over the sections without it.
+     */
+    @MainThread
+    public void setItemInfoCacheSize(int size) {
+        adapter.setItemInfoCacheSize(size);
+    }
+
+    /**
+     * Counts the items that share their id with another item after each update, which confuses RecyclerView's
+     * stable id caches. Resolves every position on each update, so only enable it in debug builds.
+     */
+    @MainThread
+    public void setDetectIdCollisions(boolean detectIdCollisions) {
+        adapter.setDetectIdCollisions(detectIdCollisions);
+    }
+
+    /**
+     * Number of items that shared their id with an earlier item after the last update, while detecting collisions.
+     */
+    @MainThread
+    public int getIdCollisionCount() {
+        return adapter.getIdCollisionCount();
+    }
+
     /**
      * Declares the addition of a section. This method is useful when we want to set the order of sections before we
      * have data in each sections.
@@ -88,6 +116,37 @@ public class SectionedRecyclerViewAdapter implements ViewModelAdapter {
         adapter.removeSection(section);
     }
 
+    /**
+     * Like {@link #updateSection}, but computes the diff on the diff scheduler instead of the main thread. Only
+     * dispatching the diff to the RecyclerView happens on the main thread, and the adapter shows the previous
+     * views until then. Async updates are applied in the order they were made. The views are read from the
+     * diff scheduler, so they must not change after this call.
+     *
+     * A synchronous update made while async updates are pending applies their sections at once, without
+     * animations.
+     */
+    @MainThread
+    public void updateSectionAsync(SectionController section, Seekable<AdapterViewModel> views) {
+        adapter.updateSectionAsync(section, views);
+    }
+
+    /**
+     * Like {@link #removeSection}, but diffs on the diff scheduler. See {@link #updateSectionAsync}.
+     */
+    @MainThread
+    public void removeSectionAsync(SectionController section) {
+        adapter.updateSectionAsync(section, null);
+    }
+
+    /**
+     * Sets the scheduler used by async updates to compute diffs, {@link io.reactivex.schedulers.Schedulers#computation()}
+     * by default. It can't be changed while async updates are pending.
+     */
+    @MainThread
+    public void setDiffScheduler(Scheduler scheduler) {
+        adapter.setDiffScheduler(scheduler);
+    }
+
     public AdapterViewModel getItem(int position) {
         return adapter.getItemViewModel(position);
     }
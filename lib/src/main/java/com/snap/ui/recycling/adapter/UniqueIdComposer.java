@@ -0,0 +1,204 @@
+package com.snap.ui.recycling.adapter;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Composes the stable id of an item from its model id, view type id and section index, so that the same model id
+ * may be used by different view types and sections.
+ * <p>
+ * Model ids of up to 40 bits, in sections and view types below 4096 and 2048, are packed into disjoint bits of the
+ * id; this includes the ids {@link com.snap.ui.util.StableIds} derives from keys. Other ids, such as full 64-bit
+ * hashes, would overlap with the section and view type bits, so they are mapped to sequential ids with the top bit
+ * set, which packed ids never have. Each emission of a section maps the model ids of its own items in a
+ * {@link SectionIds}, carrying over the ids that the section's earlier emissions gave to the same model ids and view
+ * types. An item therefore keeps its id for as long as it stays in its section, however
+ * many items there are, and ids of items that are gone are dropped with the emissions that held them.
+ * <p>
+ * Thread safe.
+ */
+final class UniqueIdComposer {
+
+    private static final int MODEL_ID_BITS = 40;
+    private static final int SECTION_BITS = 12;
+    private static final int VIEW_TYPE_BITS = 11;
+
+    private final AtomicLong mNextMappedId = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Returns the ids of a new emission of a section, carrying over those of {@code sources}, earlier emissions of
+     * the same section, such as the previous one and the one displayed. The sources stop carrying over ids from
+     * their own sources, so that emissions don't keep each other reachable.
+     */
+    SectionIds newSectionIds(@Nullable SectionIds... sources) {
+        for (SectionIds source : sources) {
+            if (source != null) {
+                source.seal();
+            }
+        }
+        return new SectionIds(sources);
+    }
+
+    /**
+     * Whether {@code uniqueId} was mapped rather than packed.
+     */
+    static boolean isMapped(long uniqueId) {
+        return uniqueId < 0;
+    }
+
+    /**
+     * Returns the number of ids among the first {@code count} of {@code ids} that equal an earlier one. Sorts a copy,
+     * so it is meant for debugging.
+     */
+    static int countDuplicates(long[] ids, int count) {
+        long[] sorted = Arrays.copyOf(ids, count);
+        Arrays.sort(sorted);
+        int duplicates = 0;
+        for (int i = 1; i < count; i++) {
+            if (sorted[i] == sorted[i - 1]) {
+                duplicates++;
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * The ids of the items of one emission of a section.
+     */
+    final class SectionIds {
+
+        private @Nullable SectionIds[] mSources;
+        // Allocated on the first model id that can't be packed.
+        private @Nullable Table mTable;
+
+        SectionIds(@Nullable SectionIds[] sources) {
+            mSources = sources;
+        }
+
+        long compose(long modelId, int viewTypeId, int sectionId) {
+            if ((modelId >>> MODEL_ID_BITS) == 0
+                    && (sectionId >>> SECTION_BITS) == 0
+                    && (viewTypeId >>> VIEW_TYPE_BITS) == 0) {
+                return modelId
+                        | ((long) sectionId << MODEL_ID_BITS)
+                        | ((long) viewTypeId << (MODEL_ID_BITS + SECTION_BITS));
+            }
+            return map(modelId, viewTypeId);
+        }
+
+        /**
+         * Number of items of this emission with a mapped id.
+         */
+        synchronized int getMappedCount() {
+            return mTable != null ? mTable.mSize : 0;
+        }
+
+        /**
+         * Stops carrying over ids from the sources, once every item has its id.
+         */
+        synchronized void seal() {
+            mSources = null;
+        }
+
+        private long map(long modelId, int viewTypeId) {
+            SectionIds[] sources;
+            synchronized (this) {
+                long id = mTable != null ? mTable.get(modelId, viewTypeId) : 0;
+                if (id != 0) {
+                    return id;
+                }
+                sources = mSources;
+            }
+            // Sources are searched without holding this lock, so that emissions never wait on each other's locks.
+            long id = 0;
+            if (sources != null) {
+                for (int i = 0; i < sources.length && id == 0; i++) {
+                    if (sources[i] != null) {
+                        id = sources[i].find(modelId, viewTypeId);
+                    }
+                }
+            }
+            if (id == 0) {
+                id = mNextMappedId.getAndIncrement();
+            }
+            synchronized (this) {
+                if (mTable == null) {
+                    mTable = new Table();
+                }
+                // Another thread may have mapped the same item in the meantime.
+                return mTable.putIfAbsent(modelId, viewTypeId, id);
+            }
+        }
+
+        private synchronized long find(long modelId, int viewTypeId) {
+            return mTable != null ? mTable.get(modelId, viewTypeId) : 0;
+        }
+    }
+
+    /**
+     * An open addressing table from a model id and view type id to a mapped id. Mapped ids are never 0, which marks
+     * empty slots.
+     */
+    private static final class Table {
+        private long[] mModelIds = new long[16];
+        private int[] mViewTypeIds = new int[16];
+        private long[] mIds = new long[16];
+        int mSize;
+
+        long get(long modelId, int viewTypeId) {
+            int mask = mIds.length - 1;
+            for (int i = slot(modelId, viewTypeId, mask); mIds[i] != 0; i = (i + 1) & mask) {
+                if (mModelIds[i] == modelId && mViewTypeIds[i] == viewTypeId) {
+                    return mIds[i];
+                }
+            }
+            return 0;
+        }
+
+        long putIfAbsent(long modelId, int viewTypeId, long id) {
+            long existing = get(modelId, viewTypeId);
+            if (existing != 0) {
+                return existing;
+            }
+            // At most half full, so that probes stay short.
+            if (mSize * 2 >= mIds.length) {
+                grow();
+            }
+            insert(modelId, viewTypeId, id);
+            mSize++;
+            return id;
+        }
+
+        private void insert(long modelId, int viewTypeId, long id) {
+            int mask = mIds.length - 1;
+            int i = slot(modelId, viewTypeId, mask);
+            while (mIds[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            mModelIds[i] = modelId;
+            mViewTypeIds[i] = viewTypeId;
+            mIds[i] = id;
+        }
+
+        private void grow() {
+            long[] modelIds = mModelIds;
+            int[] viewTypeIds = mViewTypeIds;
+            long[] ids = mIds;
+            mModelIds = new long[ids.length * 2];
+            mViewTypeIds = new int[ids.length * 2];
+            mIds = new long[ids.length * 2];
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != 0) {
+                    insert(modelIds[i], viewTypeIds[i], ids[i]);
+                }
+            }
+        }
+
+        private static int slot(long modelId, int viewTypeId, int mask) {
+            long hash = (modelId ^ (viewTypeId * 0x9e3779b97f4a7c15L)) * 0xbf58476d1ce4e5b9L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.snap.ui.recycling.adapter
+
+import android.os.Handler
+import android.os.Looper
+import android.view.Choreographer
+import io.reactivex.Observable
+import io.reactivex.Scheduler
+import java.util.concurrent.TimeUnit
+
+/**
+ * Creators for common [UpdateCoalescingPolicy]s. Every policy emits the latest pending update,
+ * and never holds an update for longer than its maximum latency, even if updates keep arriving.
+ */
+object UpdateCoalescingPolicies {
+
+    /**
+     * Emits the latest update once no update has arrived for `window`, or once the oldest pending
+     * update has waited for `maxLatency`.
+     */
+    @JvmStatic
+    fun debounce(window: Long, maxLatency: Long, unit: TimeUnit): UpdateCoalescingPolicy {
+        return LatestUpdatePolicy(unit.toNanos(window), unit.toNanos(window), unit.toNanos(maxLatency), false)
+    }
+
+    /**
+     * Emits the latest update at the next display frame, so that at most one update is diffed per frame.
+     * Updates are emitted after `maxLatency` if no frame arrives in the meantime.
+     */
+    @JvmStatic
+    fun frameAligned(maxLatency: Long, unit: TimeUnit): UpdateCoalescingPolicy {
+        return LatestUpdatePolicy(0, 0, unit.toNanos(maxLatency), true)
+    }
+
+    /**
+     * Like [debounce], with a window that follows the measured diff cost: twice the recent average
+     * diff duration, clamped between `minWindow` and `maxWindow`. Adapters with expensive diffs
+     * coalesce more updates, adapters with cheap diffs apply them sooner.
+     */
+    @JvmStatic
+    fun adaptive(minWindow: Long, maxWindow: Long, maxLatency: Long, unit: TimeUnit): UpdateCoalescingPolicy {
+        return LatestUpdatePolicy(unit.toNanos(minWindow), unit.toNanos(maxWindow), unit.toNanos(maxLatency), false)
+    }
+
+    private class LatestUpdatePolicy(
+        private val minWindowNanos: Long,
+        private val maxWindowNanos: Long,
+        private val maxLatencyNanos: Long,
+        private val frameAligned: Boolean
+    ) : UpdateCoalescingPolicy {
+
+        // Exponential moving average of diff durations. Diffs run one at a time, so there is a single writer.
+        @Volatile
+        private var averageDiffNanos = 0L
+
+        override fun <T> coalesce(updates: Observable<T>, scheduler: Scheduler): Observable<T> {
+            return CoalescingObservable(
+                    updates,
+                    scheduler,
+                    { Math.max(minWindowNanos, Math.min(maxWindowNanos, averageDiffNanos * 2)) },
+                    maxLatencyNanos,
+                    if (frameAligned) MainThreadFrameTrigger else null
+            )
+        }
+
+        override fun onUpdateDiffed(diffNanos: Long) {
+            averageDiffNanos += (diffNanos - averageDiffNanos) / 4
+        }
+    }
+
+    /**
+     * Runs a callback at the next frame of the main thread's [Choreographer].
+     */
+    private object MainThreadFrameTrigger : CoalescingObservable.FrameTrigger {
+        private val handler = Handler(Looper.getMainLooper())
+
+        override fun postFrameCallback(callback: Runnable) {
+            // Choreographer instances are per-thread, so only obtain it on the main thread.
+            handler.post { Choreographer.getInstance().postFrameCallback { callback.run() } }
+        }
+    }
+}
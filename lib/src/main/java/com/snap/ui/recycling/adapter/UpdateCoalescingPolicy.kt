@@ -0,0 +1,25 @@
+package com.snap.ui.recycling.adapter
+
+import io.reactivex.Observable
+import io.reactivex.Scheduler
+
+/**
+ * Decides how [ObservableViewModelSectionAdapter] coalesces bursts of section updates before they are diffed.
+ * See [UpdateCoalescingPolicies] for the provided policies.
+ *
+ * A policy may keep state about the adapter it is used with, so a policy instance should not be shared
+ * between adapters.
+ */
+interface UpdateCoalescingPolicy {
+
+    /**
+     * Transforms the stream of pending updates. Any update may be dropped in favor of a newer one,
+     * but the latest update must eventually be emitted. Emissions should happen on [scheduler].
+     */
+    fun <T> coalesce(updates: Observable<T>, scheduler: Scheduler): Observable<T>
+
+    /**
+     * Reports how long it took to diff an update emitted by [coalesce].
+     */
+    fun onUpdateDiffed(diffNanos: Long) {}
+}
@@ -12,12 +12,13 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewGroup.LayoutParams;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import androidx.core.os.TraceCompat;
@@ -34,6 +35,8 @@ import com.snap.ui.recycling.viewmodel.AdapterViewModel;
 import com.snap.ui.seeking.Seekable;
 import com.snap.ui.seeking.Seekables;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.PublishSubject;
 
 /**
@@ -43,23 +46,41 @@ import io.reactivex.subjects.PublishSubject;
 class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelViewHolder>
         implements ViewModelAdapter {
 
-    private static final int CACHE_SIZE = 50;
     private final ViewFactory viewFactory;
     private final EventDispatcher eventDispatcher;
     private @Nullable final AdapterErrorHandler errorHandler;
     private final LinkedHashMap<SectionController, Seekable<AdapterViewModel>> sections = new LinkedHashMap<>();
+    // Mirrors sections, for resolving positions.
+    private final SectionIndex sectionIndex = new SectionIndex();
 
     private int itemCount;
-    private final SectionItemInfoCache itemInfoCache;
+    private @Nullable SectionItemInfoCache itemInfoCache;
+    // Returned by getSectionInfoForPosition when there is no cache. Callers read it right away on the main thread.
+    private final SectionItemInfo resolvedItemInfo = new SectionItemInfo();
+    private final UniqueIdComposer uniqueIdComposer = new UniqueIdComposer();
+    // The ids of the current views of each section, renewed whenever the views are replaced.
+    private final HashMap<SectionController, UniqueIdComposer.SectionIds> sectionIds = new HashMap<>();
+    private boolean detectIdCollisions;
+    private int idCollisionCount;
 
     private boolean asyncBinding;
     private final Handler handler = new Handler(Looper.getMainLooper());
+    // Resolved on the first async bind, since the adapter may be created off the main thread.
+    private @Nullable BindScheduler bindScheduler;
+    // Bindings scheduled and not yet run, so that a recycled holder can cancel its own.
     private final LinkedList<BindingRequest> bindingRequests = new LinkedList<>();
     private final PublishSubject<AttachToRecyclerViewEvent> mAttachPublisher = PublishSubject.create();
-    private final AtomicBoolean asyncBindingScheduled = new AtomicBoolean(false);
 
-    // How long an async binding may run before yielding the thread:
-    private static final long ASYNC_BINDING_POLITENESS_TIMEOUT = 12;
+    // Async section updates are diffed in order on a single worker, each against the sections as the previous
+    // update leaves them, and applied in the same order on the main thread.
+    private Scheduler diffScheduler = Schedulers.computation();
+    private @Nullable Scheduler.Worker diffWorker;
+    // Sections as they will be once all pending async updates are applied, or null if none are pending.
+    private @Nullable LinkedHashMap<SectionController, Seekable<AdapterViewModel>> pendingSections;
+    private int pendingUpdateCount;
+    // Incremented by synchronous updates, which discard the diffs of pending async updates.
+    private long updateGeneration;
+
     // If a bind has been stalled by this amount of time, fade the cell in:
     private static final long ASYNC_BINDING_ANIMATION_DELAY = 150;
     private static final long ASYNC_BINDING_ANIMATION_DURATION_MS = 100;
@@ -72,7 +93,6 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
         this.eventDispatcher = eventDispatcher;
         this.errorHandler = adapterErrorHandler;
 
-        this.itemInfoCache = new SectionItemInfoCache(viewFactory, CACHE_SIZE);
         setHasStableIds(true);
     }
 
@@ -83,9 +103,11 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
             List<? extends SectionController> initialControllers) {
         this(viewFactory, eventDispatcher, errorHandler);
         for (SectionController sectionController : initialControllers) {
-            sections.put(sectionController, Seekables.empty());
+            sections.put(sectionController, Seekables.<AdapterViewModel>empty());
+            sectionIndex.add(sectionController, Seekables.<AdapterViewModel>empty());
         }
-        itemCount = computeSize();
+        itemCount = sectionIndex.getItemCount();
+        checkIdCollisions();
         notifyChangedViews(0, Seekables.empty(), Seekables.empty(), 0, itemCount);
     }
 
@@ -93,6 +115,48 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
         this.asyncBinding = asyncBinding;
     }
 
+    /**
+     * Caches the view model, view type and id of up to {@code size} positions, or disables the cache if size is 0.
+     * Positions are resolved with a binary search over the sections either way; the cache only helps when reading
+     * items from the sections' Seekables is expensive.
+     */
+    @MainThread
+    void setItemInfoCacheSize(int size) {
+        itemInfoCache = size > 0 ? new SectionItemInfoCache(size) : null;
+    }
+
+    /**
+     * Counts the items sharing their id with another item after each update, see {@link #getIdCollisionCount()}.
+     * Resolves every position on each update, so it is meant for debug builds.
+     */
+    @MainThread
+    void setDetectIdCollisions(boolean detectIdCollisions) {
+        this.detectIdCollisions = detectIdCollisions;
+        checkIdCollisions();
+    }
+
+    /**
+     * Number of items that shared their id with an earlier item after the last update, if
+     * {@link #setDetectIdCollisions detecting collisions}.
+     */
+    @MainThread
+    int getIdCollisionCount() {
+        return idCollisionCount;
+    }
+
+    @MainThread
+    void setDiffScheduler(Scheduler scheduler) {
+        throwIfNotOnMainThread();
+        if (pendingSections != null) {
+            throw new IllegalStateException("Cannot change the diff scheduler while async updates are pending.");
+        }
+        if (diffWorker != null) {
+            diffWorker.dispose();
+            diffWorker = null;
+        }
+        diffScheduler = scheduler;
+    }
+
     /**
      * Replaces a single section's views.  Attempts to do an in-place update of the section if existing.
      *
@@ -101,22 +165,21 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
     @MainThread
     void updateSection(SectionController section, Seekable<AdapterViewModel> views) {
         throwIfNotOnMainThread();
-        int seen = 0;
-        boolean existing = false;
-        for (Map.Entry<SectionController, Seekable<AdapterViewModel>> entry : sections.entrySet()) {
-            if (section == entry.getKey()) {
-                existing = true;
-                break;
-            }
-            seen += entry.getValue().size();
-        }
+        applyPendingSections();
+        int index = sectionIndex.indexOf(section);
+        int seen = index >= 0 ? sectionIndex.getOffset(index) : sectionIndex.getItemCount();
 
         int oldAdapterSize = itemCount;
         Seekable<AdapterViewModel> oldViews = sections.put(section, views);
-        itemCount = computeSize();
-        if (existing) {
-            itemInfoCache.evictAll(); // be conservative and evict the entire cache.
+        sectionIds.put(section, uniqueIdComposer.newSectionIds(sectionIds.get(section)));
+        if (index >= 0) {
+            sectionIndex.set(index, views);
+            evictItemInfo(); // be conservative and evict the entire cache.
+        } else {
+            sectionIndex.add(section, views);
         }
+        itemCount = sectionIndex.getItemCount();
+        checkIdCollisions();
 
         if (oldViews == null) {
             oldViews = Seekables.empty();
@@ -131,22 +194,19 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
     @MainThread
     void removeSection(SectionController section) {
         throwIfNotOnMainThread();
-        int seen = 0;
-        boolean existing = false;
-        for (Map.Entry<SectionController, Seekable<AdapterViewModel>> entry : sections.entrySet()) {
-            if (section == entry.getKey()) {
-                existing = true;
-                break;
-            }
-            seen += entry.getValue().size();
-        }
+        applyPendingSections();
+        int index = sectionIndex.indexOf(section);
+        int seen = index >= 0 ? sectionIndex.getOffset(index) : sectionIndex.getItemCount();
 
         int oldAdapterSize = itemCount;
         Seekable<AdapterViewModel> oldViews = sections.remove(section);
-        itemCount = computeSize();
-        if (existing) {
-            itemInfoCache.evictAll(); // be conservative and evict the entire cache.
+        sectionIds.remove(section);
+        if (index >= 0) {
+            sectionIndex.remove(index);
+            evictItemInfo(); // be conservative and evict the entire cache.
         }
+        itemCount = sectionIndex.getItemCount();
+        checkIdCollisions();
 
         if (oldViews == null) {
             oldViews = Seekables.empty();
@@ -156,6 +216,101 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
         notifyChangedViews(seen, oldViews, views, oldAdapterSize, itemCount);
     }
 
+    /**
+     * Replaces a single section's views, or removes the section if {@code views} is null, diffing on the diff
+     * scheduler. The adapter keeps showing the current sections until the diff is dispatched on the main thread.
+     */
+    @MainThread
+    void updateSectionAsync(SectionController section, @Nullable Seekable<AdapterViewModel> views) {
+        throwIfNotOnMainThread();
+        LinkedHashMap<SectionController, Seekable<AdapterViewModel>> base =
+                pendingSections != null ? pendingSections : sections;
+
+        int seen = 0;
+        for (Map.Entry<SectionController, Seekable<AdapterViewModel>> entry : base.entrySet()) {
+            if (section == entry.getKey()) {
+                break;
+            }
+            seen += entry.getValue().size();
+        }
+
+        // Copy the sections, so the diff reads a snapshot that later updates don't modify.
+        final LinkedHashMap<SectionController, Seekable<AdapterViewModel>> target = new LinkedHashMap<>(base);
+        Seekable<AdapterViewModel> oldViews = views == null ? target.remove(section) : target.put(section, views);
+        if (oldViews == null) {
+            oldViews = Seekables.empty();
+        }
+        if (views == null) {
+            views = Seekables.empty();
+        }
+        final SingleSectionDiffUtilCallback callback = new SingleSectionDiffUtilCallback(
+                seen, oldViews, views, computeSize(base), computeSize(target));
+
+        pendingSections = target;
+        pendingUpdateCount++;
+        final long generation = updateGeneration;
+        if (diffWorker == null) {
+            diffWorker = diffScheduler.createWorker();
+        }
+        diffWorker.schedule(new Runnable() {
+            @Override
+            public void run() {
+                TraceCompat.beginSection("RV:diff");
+                final DiffUtil.DiffResult diff = DiffUtil.calculateDiff(callback, false);
+                TraceCompat.endSection();
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        applyAsyncUpdate(generation, target, diff);
+                    }
+                });
+            }
+        });
+    }
+
+    @MainThread
+    private void applyAsyncUpdate(long generation,
+                                  LinkedHashMap<SectionController, Seekable<AdapterViewModel>> target,
+                                  DiffUtil.DiffResult diff) {
+        if (generation != updateGeneration) {
+            // A synchronous update has already applied these sections.
+            return;
+        }
+        if (--pendingUpdateCount == 0) {
+            pendingSections = null;
+        }
+        renewSectionIds(target);
+        sections.clear();
+        sections.putAll(target);
+        sectionIndex.reset(sections);
+        itemCount = sectionIndex.getItemCount();
+        checkIdCollisions();
+        evictItemInfo();
+        diff.dispatchUpdatesTo(this);
+    }
+
+    /**
+     * Applies the sections of pending async updates at once, before a synchronous update. Their diffs have been
+     * computed against sections that no longer exist after the synchronous update, so they are discarded.
+     */
+    @MainThread
+    private void applyPendingSections() {
+        if (pendingSections == null) {
+            return;
+        }
+        updateGeneration++;
+        renewSectionIds(pendingSections);
+        sections.clear();
+        sections.putAll(pendingSections);
+        pendingSections = null;
+        pendingUpdateCount = 0;
+        sectionIndex.reset(sections);
+        itemCount = sectionIndex.getItemCount();
+        checkIdCollisions();
+        evictItemInfo();
+        notifyDataSetChanged();
+    }
+
     @Override
     public @NonNull ViewModelViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         try {
@@ -175,15 +330,29 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
         if (asyncBinding && !holder.hasBeenBound()) {
             bindAsync(holder, position);
         } else {
-            bind(holder, position);
+            bind(holder, position, Collections.emptyList());
         }
     }
 
-    private void bind(ViewModelViewHolder holder, int position) {
+    @Override
+    public void onBindViewHolder(@NonNull ViewModelViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || !holder.hasBeenBound()) {
+            onBindViewHolder(holder, position);
+        } else {
+            // Partial rebinds are cheap, so they are never deferred.
+            bind(holder, position, payloads);
+        }
+    }
+
+    private void bind(ViewModelViewHolder holder, int position, List<Object> payloads) {
         try {
             TraceCompat.beginSection("RC:bind");
             SectionItemInfo info = getSectionInfoForPosition(position);
-            holder.bind(info.viewModel, eventDispatcher, info.sectionController);
+            if (payloads.isEmpty()) {
+                holder.bind(info.viewModel, eventDispatcher, info.sectionController);
+            } else {
+                holder.bind(info.viewModel, eventDispatcher, info.sectionController, payloads);
+            }
         } catch (Exception e) {
             if (errorHandler != null) {
                 errorHandler.onError(e, new AdapterErrorInfo(position));
@@ -203,10 +372,12 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
             holder.itemView.setVisibility(View.INVISIBLE);
         }
 
-        bindingRequests.add(new BindingRequest(holder, position, needsSizing));
-        if (asyncBindingScheduled.compareAndSet(false, true)) {
-            handler.post(asyncBindingRunnable);
+        BindingRequest request = new BindingRequest(holder, needsSizing);
+        bindingRequests.add(request);
+        if (bindScheduler == null) {
+            bindScheduler = BindScheduler.getInstance();
         }
+        bindScheduler.schedule(request);
     }
 
     @Override
@@ -214,7 +385,8 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
         try {
             for (BindingRequest request : bindingRequests) {
                 if (request.holder == holder) {
-                    request.recycled = true;
+                    request.cancel();
+                    bindingRequests.remove(request);
                     return;
                 }
             }
@@ -304,7 +476,7 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
         }
     }
 
-    int computeSize() {
+    private static int computeSize(Map<SectionController, Seekable<AdapterViewModel>> sections) {
         int count = 0;
         for (Seekable seekable : sections.values()) {
             count += seekable.size();
@@ -314,7 +486,56 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
 
     @MainThread
     private SectionItemInfo getSectionInfoForPosition(int position) {
-        return itemInfoCache.get(position);
+        if (itemInfoCache != null) {
+            return itemInfoCache.get(position);
+        }
+        return resolveItemInfo(position, resolvedItemInfo);
+    }
+
+    private SectionItemInfo resolveItemInfo(int position, SectionItemInfo info) {
+        throwIfNotOnMainThread();
+        if (position < 0 || position >= sectionIndex.getItemCount()) {
+            throw new IllegalStateException("Invalid position " + position + ", item count is " + itemCount);
+        }
+        int sectionId = sectionIndex.sectionIndexAt(position);
+        AdapterViewModel model = sectionIndex.getViews(sectionId).get(position - sectionIndex.getOffset(sectionId));
+
+        info.viewModel = model;
+        info.itemViewTypeId = viewFactory.getViewTypeId(model.getType());
+        info.sectionController = sectionIndex.getController(sectionId);
+        info.uniqueId = createUniqueId(model, info.itemViewTypeId, sectionId, info.sectionController);
+        return info;
+    }
+
+    /**
+     * Renews the ids of the sections whose views differ in {@code target}, before it replaces the current sections.
+     */
+    private void renewSectionIds(Map<SectionController, Seekable<AdapterViewModel>> target) {
+        sectionIds.keySet().retainAll(target.keySet());
+        for (Map.Entry<SectionController, Seekable<AdapterViewModel>> entry : target.entrySet()) {
+            SectionController section = entry.getKey();
+            if (sections.get(section) != entry.getValue()) {
+                sectionIds.put(section, uniqueIdComposer.newSectionIds(sectionIds.get(section)));
+            }
+        }
+    }
+
+    private void checkIdCollisions() {
+        if (!detectIdCollisions) {
+            return;
+        }
+        SectionItemInfo info = new SectionItemInfo();
+        long[] ids = new long[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            ids[i] = resolveItemInfo(i, info).uniqueId;
+        }
+        idCollisionCount = UniqueIdComposer.countDuplicates(ids, itemCount);
+    }
+
+    private void evictItemInfo() {
+        if (itemInfoCache != null) {
+            itemInfoCache.evictAll();
+        }
     }
 
     /**
@@ -323,9 +544,16 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
      * a data model can have the same id as long as the viewTypes are different-- useful
      * when using a database rowId to represent different types of data in the same RecyclerView,
      * also allowing a model to be used across sections, even with matching viewType.
+     * See {@link UniqueIdComposer} for how model ids wider than 40 bits are handled.
      */
-    private static long createUniqueId(AdapterViewModel model, int viewTypeId, int sectionId) {
-        return (model.getId()) ^ ((long)sectionId << 40) ^ (((long)viewTypeId) << 52);
+    private long createUniqueId(
+            AdapterViewModel model, int viewTypeId, int sectionId, SectionController section) {
+        UniqueIdComposer.SectionIds ids = sectionIds.get(section);
+        if (ids == null) {
+            ids = uniqueIdComposer.newSectionIds();
+            sectionIds.put(section, ids);
+        }
+        return ids.compose(model.getId(), viewTypeId, sectionId);
     }
 
     static class SectionItemInfo {
@@ -335,54 +563,25 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
         long uniqueId;
     }
 
+    /**
+     * An optional cache in front of {@link #resolveItemInfo}.
+     */
     private class SectionItemInfoCache extends LruCache<Integer, SectionItemInfo> {
 
-        final ViewFactory viewFactory;
-
         // Recycle the evicted SectionItemInfo
         final AtomicReference<SectionItemInfo> evictedItemInfo = new AtomicReference<>();
 
-        SectionItemInfoCache(ViewFactory viewFactory, int capacity) {
+        SectionItemInfoCache(int capacity) {
             super(capacity);
-            this.viewFactory = viewFactory;
         }
 
         @Override
         protected SectionItemInfo create(Integer key) {
-            throwIfNotOnMainThread();
             SectionItemInfo info = evictedItemInfo.getAndSet(null);
             if (info == null) {
                 info = new SectionItemInfo();
             }
-
-            int position = key;
-            int seen = 0;
-            SectionController foundAtSection = null;
-            int foundAt;
-            AdapterViewModel foundModel = null;
-            int sectionId = 0;
-            for (Map.Entry<SectionController, Seekable<AdapterViewModel>> seekable : sections.entrySet()) {
-                int relativePos = position - seen;
-                Seekable<AdapterViewModel> views = seekable.getValue();
-                if (relativePos < views.size()) {
-                    foundAt = relativePos;
-                    foundAtSection = seekable.getKey();
-                    foundModel = views.get(foundAt);
-                    break;
-                }
-                seen += views.size();
-                sectionId++;
-            }
-
-            if (foundModel == null) {
-                throw new IllegalStateException();
-            }
-
-            info.viewModel = foundModel;
-            info.itemViewTypeId = viewFactory.getViewTypeId(foundModel.getType());
-            info.sectionController = foundAtSection;
-            info.uniqueId = createUniqueId(info.viewModel, info.itemViewTypeId, sectionId);
-            return info;
+            return resolveItemInfo(key, info);
         }
 
         @Override
@@ -480,7 +679,7 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
 
             AdapterViewModel old = oldViews.get(reposition(oldItemPosition));
             AdapterViewModel gnu = newViews.get(reposition(newItemPosition));
-            return old.areContentsTheSame(gnu);
+            return old.hasSameContents(gnu);
         }
 
         int reposition(int position) {
@@ -517,63 +716,43 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
         }
     }
 
-    private static class BindingRequest {
+    private class BindingRequest extends BindScheduler.BindRequest {
         final ViewModelViewHolder<?> holder;
-        final int position;
         final boolean makeVisible;
         final long requestTime;
 
-        boolean recycled;
-
-        BindingRequest(ViewModelViewHolder<?> holder, int position, boolean makeVisible) {
+        BindingRequest(ViewModelViewHolder<?> holder, boolean makeVisible) {
             this.holder = holder;
-            this.position = position;
             this.makeVisible = makeVisible;
             this.requestTime = System.nanoTime();
         }
-    }
 
-    private final Runnable asyncBindingRunnable = new Runnable() {
         @Override
-        public void run() {
-            BindingRequest request;
-            long startTime = System.nanoTime();
-            while ((request = bindingRequests.poll()) != null) {
-                ViewModelViewHolder<?> holder = request.holder;
-                if (request.recycled) {
-                    continue;
-                }
-                int pos = holder.getAdapterPosition();
-                if (pos != RecyclerView.NO_POSITION) {
-                    bind(holder, pos);
-                    long now = System.nanoTime();
-                    if (request.makeVisible) {
-                        holder.itemView.setVisibility(View.VISIBLE);
-                        long latencyMs = TimeUnit.MILLISECONDS.convert(now - request.requestTime, TimeUnit.NANOSECONDS);
-                        if (latencyMs > ASYNC_BINDING_ANIMATION_DELAY) {
-                            holder.itemView.setAlpha(0f);
-                            holder.itemView.animate()
-                                    .alpha(1)
-                                    .withLayer()
-                                    .setDuration(ASYNC_BINDING_ANIMATION_DURATION_MS);
-                        }
-                    }
-
-                    long runtime = TimeUnit.MILLISECONDS.convert(now - startTime, TimeUnit.NANOSECONDS);
-                    if (runtime > ASYNC_BINDING_POLITENESS_TIMEOUT) {
-                        break;
-                    }
-                }
+        protected boolean isVisible() {
+            return BindScheduler.isOnScreen(holder.itemView);
+        }
 
+        @Override
+        protected void bind() {
+            bindingRequests.remove(this);
+            int pos = holder.getAdapterPosition();
+            if (pos == RecyclerView.NO_POSITION) {
+                return;
             }
-
-            if (bindingRequests.isEmpty()) {
-                asyncBindingScheduled.set(false);
-            } else {
-                handler.post(asyncBindingRunnable);
+            ViewModelSectionAdapterInternal.this.bind(holder, pos, Collections.<Object>emptyList());
+            if (makeVisible) {
+                holder.itemView.setVisibility(View.VISIBLE);
+                long latencyMs = TimeUnit.MILLISECONDS.convert(System.nanoTime() - requestTime, TimeUnit.NANOSECONDS);
+                if (latencyMs > ASYNC_BINDING_ANIMATION_DELAY) {
+                    holder.itemView.setAlpha(0f);
+                    holder.itemView.animate()
+                            .alpha(1)
+                            .withLayer()
+                            .setDuration(ASYNC_BINDING_ANIMATION_DURATION_MS);
+                }
             }
         }
-    };
+    }
 
     public Observable<AttachToRecyclerViewEvent> observeAttachToRecyclerViewEvents() {
         return mAttachPublisher;
@@ -592,6 +771,8 @@ class ViewModelSectionAdapterInternal extends RecyclerView.Adapter<ViewModelView
     }
 
     private static void throwIfNotOnMainThread() {
-        throw new IllegalStateException("You can only modify sections on main thread.");
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            throw new IllegalStateException("You can only modify sections on main thread.");
+        }
     }
 }
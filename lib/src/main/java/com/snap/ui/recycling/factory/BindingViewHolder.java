@@ -3,6 +3,7 @@ package com.snap.ui.recycling.factory;
 import androidx.annotation.Nullable;
 import android.view.View;
 
+import java.util.List;
 import java.util.Locale;
 
 import com.snap.ui.event.EventDispatcher;
@@ -32,6 +33,32 @@ public class BindingViewHolder<T extends AdapterViewModel, D extends SectionCont
         super.bind(viewModel, eventDispatcher, sectionController);
     }
 
+    @Override
+    public void bind(T viewModel,
+                     EventDispatcher eventDispatcher,
+                     @Nullable SectionController sectionController,
+                     List<Object> payloads) {
+        if (payloads.isEmpty() || mBoundViewModel == null) {
+            bind(viewModel, eventDispatcher, sectionController);
+            return;
+        }
+
+        try {
+            mItemBinding.bindPayloads(viewModel, mBoundViewModel, eventDispatcher);
+        } catch (RuntimeException e) {
+            String error = String.format(Locale.US,
+                    "Failed to onBindPayloads view of type %s",
+                    mItemBinding.getClass().getSimpleName());
+            throw new RecyclingCenterBindingException(error, e, viewModel.getDebugInfo());
+        }
+
+        super.bind(viewModel, eventDispatcher, sectionController);
+    }
+
+    public ViewBinding<T> getBinding() {
+        return mItemBinding;
+    }
+
     @Override
     public void recycle() {
         mItemBinding.onRecycle();
@@ -0,0 +1,105 @@
+package com.snap.ui.recycling.factory;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.snap.ui.event.EventDispatcher;
+import com.snap.ui.recycling.SectionController;
+import com.snap.ui.recycling.prefetch.AsyncViewHolderInflater;
+import com.snap.ui.recycling.viewmodel.AdapterViewModel;
+
+import java.util.List;
+
+/**
+ * An empty container returned by {@link ViewFactory} while the real view holder is inflated in the background.
+ * Once it arrives, its view is added to the container, and it binds the models bound to this holder; a model bound
+ * in the meantime is bound to it right away.
+ *
+ * This holder is the one the RecyclerView and the section controller see, so it keeps the bound model and notifies
+ * the section controller itself. The delegate only binds its views.
+ */
+final class PlaceholderViewHolder extends ViewModelViewHolder<AdapterViewModel>
+        implements AsyncViewHolderInflater.Callback {
+
+    private @Nullable ViewModelViewHolder<AdapterViewModel> mDelegate;
+    private @Nullable EventDispatcher mEventDispatcher;
+
+    PlaceholderViewHolder(Context context) {
+        super(new FrameLayout(context));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @MainThread
+    public void onInflated(@NonNull ViewModelViewHolder<?> viewHolder) {
+        ViewModelViewHolder<AdapterViewModel> delegate = (ViewModelViewHolder<AdapterViewModel>) viewHolder;
+        View view = delegate.itemView;
+        ViewGroup.LayoutParams lp = view.getLayoutParams();
+        int width = lp != null ? lp.width : ViewGroup.LayoutParams.MATCH_PARENT;
+        int height = lp != null ? lp.height : ViewGroup.LayoutParams.WRAP_CONTENT;
+        ViewGroup.LayoutParams containerLp = itemView.getLayoutParams();
+        if (containerLp != null) {
+            containerLp.width = width;
+            containerLp.height = height;
+        }
+        ((FrameLayout) itemView).addView(view, new FrameLayout.LayoutParams(width, height));
+
+        mDelegate = delegate;
+        if (mBoundViewModel != null) {
+            delegate.bind(mBoundViewModel, mEventDispatcher, null);
+        }
+    }
+
+    @Override
+    public ViewModelViewHolder<?> getBindingHolder() {
+        return mDelegate != null ? mDelegate : this;
+    }
+
+    @Override
+    public void bind(AdapterViewModel viewModel,
+                     EventDispatcher eventDispatcher,
+                     @Nullable SectionController sectionController) {
+        if (mDelegate != null) {
+            mDelegate.bind(viewModel, eventDispatcher, null);
+        }
+        mEventDispatcher = eventDispatcher;
+        super.bind(viewModel, eventDispatcher, sectionController);
+    }
+
+    @Override
+    public void bind(AdapterViewModel viewModel,
+                     EventDispatcher eventDispatcher,
+                     @Nullable SectionController sectionController,
+                     List<Object> payloads) {
+        if (mDelegate != null) {
+            mDelegate.bind(viewModel, eventDispatcher, null, payloads);
+        }
+        mEventDispatcher = eventDispatcher;
+        super.bind(viewModel, eventDispatcher, sectionController);
+    }
+
+    @Override
+    public void recycle() {
+        if (mDelegate != null) {
+            mDelegate.recycle();
+        }
+        mEventDispatcher = null;
+        super.recycle();
+    }
+
+    @Override
+    public boolean onFailedToRecycleView() {
+        return mDelegate != null && mDelegate.onFailedToRecycleView();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PlaceholderViewHolder{%s %s}", mDelegate, super.toString());
+    }
+}
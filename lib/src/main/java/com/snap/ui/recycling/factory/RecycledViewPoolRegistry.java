@@ -0,0 +1,75 @@
+package com.snap.ui.recycling.factory;
+
+import androidx.annotation.MainThread;
+
+import com.snap.ui.recycling.AdapterViewType;
+import com.snap.ui.recycling.BindingContext;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shares a {@link SharedRecycledViewPool} between the {@link ViewFactory ViewFactories} that register the same view
+ * types in the same order, and so assign them the same ids, and that have the same {@link BindingContext}, which
+ * the bindings of their view holders were created with. A pool is kept for as long as a factory or RecyclerView
+ * uses it.
+ *
+ * Recycled views keep the Context they were created with, so use one registry per Activity, and set it on each of
+ * the Activity's factories with {@link ViewFactory#setRecycledViewPoolRegistry}.
+ */
+@MainThread
+public final class RecycledViewPoolRegistry {
+
+    private final Map<PoolKey, WeakReference<SharedRecycledViewPool>> mPools = new HashMap<>();
+
+    public SharedRecycledViewPool getPool(ViewFactory viewFactory) {
+        PoolKey key = new PoolKey(viewFactory.getBindingContext(), viewFactory.getAvailableViewTypes());
+        WeakReference<SharedRecycledViewPool> ref = mPools.get(key);
+        SharedRecycledViewPool pool = ref != null ? ref.get() : null;
+        if (pool == null) {
+            removeReleasedPools();
+            pool = new SharedRecycledViewPool();
+            mPools.put(key, new WeakReference<>(pool));
+        }
+        return pool;
+    }
+
+    private void removeReleasedPools() {
+        Iterator<WeakReference<SharedRecycledViewPool>> iterator = mPools.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().get() == null) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Matches binding contexts by identity, since they hold dependencies rather than values.
+     */
+    private static final class PoolKey {
+        private final BindingContext mBindingContext;
+        private final List<AdapterViewType> mViewTypes;
+
+        PoolKey(BindingContext bindingContext, List<AdapterViewType> viewTypes) {
+            mBindingContext = bindingContext;
+            mViewTypes = viewTypes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PoolKey)) {
+                return false;
+            }
+            PoolKey other = (PoolKey) o;
+            return mBindingContext == other.mBindingContext && mViewTypes.equals(other.mViewTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(mBindingContext) + mViewTypes.hashCode();
+        }
+    }
+}
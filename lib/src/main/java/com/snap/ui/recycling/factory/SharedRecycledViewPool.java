@@ -0,0 +1,95 @@
+package com.snap.ui.recycling.factory;
+
+import android.util.SparseIntArray;
+import android.view.View;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.recyclerview.widget.RecyclerView.RecycledViewPool;
+
+/**
+ * A {@link RecycledViewPool} shared by the RecyclerViews {@link #attach attached} to it, that sizes itself from the
+ * number of views of each type they show at once. The pool for a type keeps up to the peak number of its views seen
+ * on screen across those RecyclerViews, plus a margin, so that scrolling a screenful of items back in finds them
+ * all recycled.
+ */
+@MainThread
+public class SharedRecycledViewPool extends RecycledViewPool {
+
+    // RecycledViewPool's own default.
+    static final int MIN_MAX_RECYCLED_VIEWS = 5;
+    static final int MAX_MAX_RECYCLED_VIEWS = 32;
+    private static final int EXTRA_RECYCLED_VIEWS = 2;
+
+    private final SparseIntArray mOnScreenCounts = new SparseIntArray();
+    private final SparseIntArray mPeakOnScreenCounts = new SparseIntArray();
+
+    /**
+     * Makes {@code recyclerView} use this pool, and counts the views it shows.
+     */
+    public void attach(RecyclerView recyclerView) {
+        recyclerView.setRecycledViewPool(this);
+        recyclerView.addOnChildAttachStateChangeListener(new OnScreenCounter(recyclerView));
+    }
+
+    /**
+     * The most views of {@code viewType} seen on screen at once across the attached RecyclerViews.
+     */
+    public int getPeakOnScreenCount(int viewType) {
+        return mPeakOnScreenCounts.get(viewType);
+    }
+
+    /**
+     * The number of views of {@code viewType} this pool keeps.
+     */
+    public int getMaxRecycledViews(int viewType) {
+        return maxRecycledViewsFor(mPeakOnScreenCounts.get(viewType));
+    }
+
+    void onViewAttached(int viewType) {
+        int count = mOnScreenCounts.get(viewType) + 1;
+        mOnScreenCounts.put(viewType, count);
+        if (count > mPeakOnScreenCounts.get(viewType)) {
+            int previousMax = getMaxRecycledViews(viewType);
+            mPeakOnScreenCounts.put(viewType, count);
+            int max = getMaxRecycledViews(viewType);
+            if (max != previousMax) {
+                setMaxRecycledViews(viewType, max);
+            }
+        }
+    }
+
+    void onViewDetached(int viewType) {
+        mOnScreenCounts.put(viewType, Math.max(0, mOnScreenCounts.get(viewType) - 1));
+    }
+
+    private static int maxRecycledViewsFor(int peakOnScreenCount) {
+        return Math.max(MIN_MAX_RECYCLED_VIEWS,
+                Math.min(MAX_MAX_RECYCLED_VIEWS, peakOnScreenCount + EXTRA_RECYCLED_VIEWS));
+    }
+
+    private class OnScreenCounter implements RecyclerView.OnChildAttachStateChangeListener {
+        private final RecyclerView mRecyclerView;
+
+        OnScreenCounter(RecyclerView recyclerView) {
+            mRecyclerView = recyclerView;
+        }
+
+        @Override
+        public void onChildViewAttachedToWindow(@NonNull View view) {
+            RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(view);
+            if (holder != null) {
+                onViewAttached(holder.getItemViewType());
+            }
+        }
+
+        @Override
+        public void onChildViewDetachedFromWindow(@NonNull View view) {
+            RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(view);
+            if (holder != null) {
+                onViewDetached(holder.getItemViewType());
+            }
+        }
+    }
+}
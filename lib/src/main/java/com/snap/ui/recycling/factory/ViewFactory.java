@@ -3,8 +3,8 @@ package com.snap.ui.recycling.factory;
 import android.content.Context;
 import android.content.res.Resources;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
-import androidx.recyclerview.widget.RecyclerView.RecycledViewPool;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -17,6 +17,7 @@ import com.snap.ui.recycling.BindingContext;
 import com.snap.ui.recycling.ContextualViewBinding;
 import com.snap.ui.recycling.ViewCreatingBindingAdapterViewType;
 import com.snap.ui.recycling.ViewBinding;
+import com.snap.ui.recycling.prefetch.AsyncViewHolderInflater;
 import com.snap.ui.recycling.prefetch.ViewHolderPrefetcher;
 import com.snap.ui.recycling.prefetch.ViewPrefetcher;
 import io.reactivex.Observable;
@@ -24,8 +25,10 @@ import io.reactivex.subjects.PublishSubject;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 /**
@@ -39,14 +42,15 @@ public class ViewFactory {
      */
     public static final int DEFAULT_CONTAINER = 0;
 
-    // getEnumConstants() creates a copy of the enum values, so eat the cost up front
-    private final List<AdapterViewType[]> mViewTypeValues = new ArrayList<>();
-    private final List<Class<? extends AdapterViewType>> mViewTypeClasses = new ArrayList<>();
+    // Replaced as a whole by setAvailableViewTypes, so lookups can read it without locking.
+    private volatile ViewTypeIndex mViewTypeIndex;
 
     private ViewPrefetcher mViewPrefetcher;
     private ViewHolderPrefetcher mViewHolderPrefetcher;
+    private @Nullable AsyncViewHolderInflater mAsyncInflater;
     private WeakReference<LayoutInflater> mLayoutInflaterRef = new WeakReference<>(null);
-    private final RecycledViewPool mRecycledViewPool = new RecycledViewPool();
+    private @Nullable RecycledViewPoolRegistry mRecycledViewPoolRegistry;
+    private @Nullable SharedRecycledViewPool mRecycledViewPool;
     private final BindingContext mBindingContext;
     private final PublishSubject<AdapterViewType> mViewHolderCreationSubject = PublishSubject.create();
 
@@ -55,11 +59,11 @@ public class ViewFactory {
     }
 
     public ViewFactory(Class<? extends AdapterViewType> viewTypes) {
-        this(new EmptyBindingContext(), Collections.<Class<? extends AdapterViewType>>singleton(viewTypes));
+        this(EmptyBindingContext.INSTANCE, Collections.<Class<? extends AdapterViewType>>singleton(viewTypes));
     }
 
     public ViewFactory(Collection<Class<? extends AdapterViewType>> viewTypes) {
-        this(new EmptyBindingContext(), viewTypes);
+        this(EmptyBindingContext.INSTANCE, viewTypes);
     }
 
     public ViewFactory(BindingContext bindingContext, Collection<Class<? extends AdapterViewType>> viewTypes) {
@@ -83,70 +87,109 @@ public class ViewFactory {
         return mViewHolderPrefetcher;
     }
 
+    /**
+     * Sets an inflater that keeps view holders inflated in the background for each view type, used after the
+     * {@link ViewHolderPrefetcher} and before inflating on the main thread.
+     */
+    public void setAsyncInflater(@Nullable AsyncViewHolderInflater asyncInflater) {
+        mAsyncInflater = asyncInflater;
+    }
+
+    @Nullable
+    public AsyncViewHolderInflater getAsyncInflater() {
+        return mAsyncInflater;
+    }
+
     synchronized void setAvailableViewTypes(Collection<Class<? extends AdapterViewType>> viewTypes) {
         if (viewTypes.isEmpty()) {
             throw new RuntimeException("viewTypes must not be empty");
         }
 
-        mViewTypeValues.clear();
-        mViewTypeClasses.clear();
-
-        for (Class<? extends AdapterViewType> vt : viewTypes) {
-            TraceCompat.beginSection("addViewTypes");
-            addAdapterViewTypes(vt);
+        TraceCompat.beginSection("addViewTypes");
+        try {
+            mViewTypeIndex = new ViewTypeIndex(viewTypes);
+        } finally {
             TraceCompat.endSection();
         }
     }
 
-    private void addAdapterViewTypes(Class<? extends AdapterViewType> types) {
-        AdapterViewType[] typeArray = types.getEnumConstants();
-        mViewTypeValues.add(typeArray);
-        mViewTypeClasses.add(types);
-    }
-
     /**
      * The item view type expected by RecyclerView.Adapter.
      */
     public int getViewTypeId(AdapterViewType viewType) {
-        final int classCount = mViewTypeClasses.size();
-        int seenViewTypes = 0;
-        for (int i = 0; i < classCount; i++) {
-            Class<? extends AdapterViewType> clazz = mViewTypeClasses.get(i);
-            if (viewType.getClass().isAssignableFrom(clazz)) {
-                for (AdapterViewType vt : mViewTypeValues.get(i)) {
-                    if (viewType == vt) {
-                        return seenViewTypes;
-                    }
-                    seenViewTypes++;
-                }
-            }
-
-            seenViewTypes += mViewTypeValues.get(i).length;
+        Integer id = mViewTypeIndex.mIds.get(viewType);
+        if (id == null) {
+            throw new IllegalStateException("AdapterViewType not registered: " + viewType.getClass());
         }
-        throw new IllegalStateException("AdapterViewType not registered: " + viewType.getClass());
+        return id;
+    }
+
+    /**
+     * The registered view types, in order of their ids.
+     */
+    public List<AdapterViewType> getAvailableViewTypes() {
+        return Collections.unmodifiableList(Arrays.asList(mViewTypeIndex.mTypes));
     }
 
     private AdapterViewType getAdapterViewType(int viewType) {
-        final int classCount = mViewTypeClasses.size();
-        int seenViewTypes = 0;
-        for (int i = 0; i < classCount; i++) {
-            int classViewTypeCount = mViewTypeValues.get(i).length;
-            int offset = viewType - seenViewTypes;
-            if (offset < classViewTypeCount) {
-                return mViewTypeValues.get(i)[offset];
+        AdapterViewType[] types = mViewTypeIndex.mTypes;
+        if (viewType < 0 || viewType >= types.length) {
+            throw new IllegalStateException("Invalid viewType index " + viewType);
+        }
+        return types[viewType];
+    }
+
+    /**
+     * Ids of the registered view types. The constants of each enum class get consecutive ids in ordinal order,
+     * starting after the constants of the classes registered before it.
+     */
+    private static final class ViewTypeIndex {
+        final IdentityHashMap<AdapterViewType, Integer> mIds = new IdentityHashMap<>();
+        final AdapterViewType[] mTypes;
+
+        ViewTypeIndex(Collection<Class<? extends AdapterViewType>> viewTypes) {
+            List<AdapterViewType> types = new ArrayList<>();
+            for (Class<? extends AdapterViewType> viewTypeClass : viewTypes) {
+                // getEnumConstants() creates a copy of the enum values, so eat the cost up front
+                for (AdapterViewType type : viewTypeClass.getEnumConstants()) {
+                    // A class registered twice keeps the ids of its first registration.
+                    if (!mIds.containsKey(type)) {
+                        mIds.put(type, types.size());
+                    }
+                    types.add(type);
+                }
             }
-            seenViewTypes += classViewTypeCount;
+            mTypes = types.toArray(new AdapterViewType[0]);
         }
-        throw new IllegalStateException("Invalid viewType index " + viewType);
     }
 
     /**
-     * Returns a shareable recycled view pool.
+     * Returns a shareable recycled view pool. It is shared with other factories of the same view types and
+     * {@link BindingContext} that use the same {@link RecycledViewPoolRegistry}, if one is set.
      */
-    public RecycledViewPool getRecycledViewPool() {
+    @UiThread
+    public SharedRecycledViewPool getRecycledViewPool() {
+        if (mRecycledViewPool == null) {
+            mRecycledViewPool = mRecycledViewPoolRegistry != null
+                    ? mRecycledViewPoolRegistry.getPool(this)
+                    : new SharedRecycledViewPool();
+        }
         return mRecycledViewPool;
     }
 
+    BindingContext getBindingContext() {
+        return mBindingContext;
+    }
+
+    /**
+     * Takes {@link #getRecycledViewPool()} from {@code registry}. Call before the pool is first used.
+     */
+    @UiThread
+    public void setRecycledViewPoolRegistry(@Nullable RecycledViewPoolRegistry registry) {
+        mRecycledViewPoolRegistry = registry;
+        mRecycledViewPool = null;
+    }
+
     @UiThread
     public ViewModelViewHolder createViewHolder(Context context, int viewType, @NonNull ViewGroup parent) {
 
@@ -162,6 +205,18 @@ public class ViewFactory {
                     return existing;
                 }
             }
+            AsyncViewHolderInflater asyncInflater = mAsyncInflater;
+            if (asyncInflater != null) {
+                ViewModelViewHolder pooled = asyncInflater.getPrefetchedViewHolder(type);
+                if (pooled != null) {
+                    return pooled;
+                }
+                if (asyncInflater.getUsePlaceholders()) {
+                    PlaceholderViewHolder placeholder = new PlaceholderViewHolder(context);
+                    asyncInflater.inflate(type, placeholder);
+                    return placeholder;
+                }
+            }
 
             View view = getOrCreateView(context, type, parent);
             return createViewHolderForType(this, type, view);
@@ -243,7 +298,10 @@ public class ViewFactory {
         return mLayoutInflaterRef.get();
     }
 
-    private static class EmptyBindingContext implements BindingContext {}
+    // Stateless, so shared by all factories without a binding context, which may then share recycled views.
+    private static class EmptyBindingContext implements BindingContext {
+        static final EmptyBindingContext INSTANCE = new EmptyBindingContext();
+    }
 
     private static String getViewHierarchy(View v) {
         StringBuilder desc = new StringBuilder();
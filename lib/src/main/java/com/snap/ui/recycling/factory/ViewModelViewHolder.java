@@ -5,6 +5,8 @@ import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.RecyclerView;
 import android.view.View;
 
+import java.util.List;
+
 import com.snap.ui.event.EventDispatcher;
 import com.snap.ui.recycling.SectionController;
 import com.snap.ui.recycling.viewmodel.AdapterViewModel;
@@ -35,6 +37,17 @@ public class ViewModelViewHolder<TModel extends AdapterViewModel> extends Recycl
         mHasBeenBound = true;
     }
 
+    /**
+     * Rebinds {@code viewModel}, a newer version of the bound item, for a change described by {@code payloads}.
+     * Holders that can update only the views that changed override this. By default, binds in full.
+     */
+    public void bind(TModel viewModel,
+                     EventDispatcher eventDispatcher,
+                     @Nullable SectionController sectionController,
+                     List<Object> payloads) {
+        bind(viewModel, eventDispatcher, sectionController);
+    }
+
     @CallSuper
     public void recycle() {
         if (mSectionController != null) {
@@ -52,6 +65,13 @@ public class ViewModelViewHolder<TModel extends AdapterViewModel> extends Recycl
         return false;
     }
 
+    /**
+     * The holder whose views the view model is bound to. That is this holder, unless it stands in for another one.
+     */
+    public ViewModelViewHolder<?> getBindingHolder() {
+        return this;
+    }
+
     public AdapterViewModel getBoundViewModel() {
         return mBoundViewModel;
     }
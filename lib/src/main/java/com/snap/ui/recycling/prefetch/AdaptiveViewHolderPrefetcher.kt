@@ -0,0 +1,141 @@
+package com.snap.ui.recycling.prefetch
+
+import android.content.SharedPreferences
+import android.util.ArrayMap
+import androidx.annotation.MainThread
+import com.snap.ui.recycling.AdapterViewType
+import com.snap.ui.recycling.factory.ViewFactory
+import com.snap.ui.recycling.factory.ViewModelViewHolder
+import io.reactivex.Completable
+
+/**
+ * A [ViewHolderPrefetcher] that learns how many view holders of each type a screen creates, and prefetches that
+ * mix the next time the screen is shown, instead of counts chosen up front.
+ *
+ * Set it on the screen's [ViewFactory] in place of [prefetcher]. It counts, per view type, the view holders the
+ * factory asks for. [save] folds the counts of this visit into a histogram stored in [preferences] under
+ * [screenKey], averaged over visits, and [prefetch] loads the learned counts. Only enum view types are learned,
+ * since they are looked up by name on the next launch.
+ */
+class AdaptiveViewHolderPrefetcher @JvmOverloads constructor(
+    private val prefetcher: CompletableViewHolderPrefetcher,
+    private val viewFactory: ViewFactory,
+    private val preferences: SharedPreferences,
+    private val screenKey: String,
+    private val maxPerType: Int = DEFAULT_MAX_PER_TYPE,
+    private val maxTotal: Int = DEFAULT_MAX_TOTAL
+) : ViewHolderPrefetcher {
+
+    private val counts = ArrayMap<AdapterViewType, Int>()
+
+    override fun getPrefetchedViewHolder(viewType: AdapterViewType): ViewModelViewHolder<*>? {
+        val holder = prefetcher.getPrefetchedViewHolder(viewType)
+        synchronized(counts) {
+            counts[viewType] = (counts[viewType] ?: 0) + 1
+        }
+        return holder
+    }
+
+    /**
+     * View holders of [viewType] requested since the last [save].
+     */
+    fun getRequestCount(viewType: AdapterViewType): Int {
+        synchronized(counts) {
+            return counts[viewType] ?: 0
+        }
+    }
+
+    /**
+     * The number of view holders to prefetch per type, from the learned histogram. The most requested types are
+     * kept when the counts add up to more than [maxTotal].
+     */
+    fun getLearnedCounts(): Map<AdapterViewType, Int> {
+        val histogram = readHistogram()
+        val learned = ArrayMap<AdapterViewType, Int>()
+        var total = 0
+        for (type in viewFactory.availableViewTypes.sortedByDescending { histogram[keyOf(it)] ?: 0f }) {
+            val average = histogram[keyOf(type)] ?: break
+            val count = minOf(Math.ceil(average.toDouble()).toInt(), maxPerType, maxTotal - total)
+            if (count <= 0) {
+                break
+            }
+            learned[type] = count
+            total += count
+        }
+        return learned
+    }
+
+    /**
+     * Prefetches the learned counts of view holders.
+     */
+    fun prefetch(): Completable {
+        return prefetcher.load(getLearnedCounts())
+    }
+
+    /**
+     * Adds the view holders requested during this visit to the stored histogram, and starts counting the next
+     * visit. Call once per visit, when the screen is hidden.
+     */
+    @MainThread
+    fun save() {
+        val histogram = readHistogram()
+        val visitCounts = ArrayMap<String, Int>()
+        synchronized(counts) {
+            for (i in 0 until counts.size) {
+                val key = keyOf(counts.keyAt(i)) ?: continue
+                visitCounts[key] = counts.valueAt(i)
+            }
+            counts.clear()
+        }
+        // Types not requested during this visit decay towards 0, and types seen for the first time start at their
+        // count.
+        for (key in histogram.keys + visitCounts.keys) {
+            val visitCount = (visitCounts[key] ?: 0).toFloat()
+            val previous = histogram[key]
+            val average = if (previous == null) {
+                visitCount
+            } else {
+                previous * (1 - VISIT_WEIGHT) + visitCount * VISIT_WEIGHT
+            }
+            if (average < MIN_AVERAGE) {
+                histogram.remove(key)
+            } else {
+                histogram[key] = average
+            }
+        }
+        preferences.edit().putString(PREFERENCE_PREFIX + screenKey, encode(histogram)).apply()
+    }
+
+    private fun readHistogram(): MutableMap<String, Float> {
+        val histogram = ArrayMap<String, Float>()
+        val encoded = preferences.getString(PREFERENCE_PREFIX + screenKey, null) ?: return histogram
+        for (entry in encoded.split(ENTRY_SEPARATOR)) {
+            val separator = entry.lastIndexOf(COUNT_SEPARATOR)
+            val average = if (separator > 0) entry.substring(separator + 1).toFloatOrNull() else null
+            if (average != null) {
+                histogram[entry.substring(0, separator)] = average
+            }
+        }
+        return histogram
+    }
+
+    private fun encode(histogram: Map<String, Float>): String {
+        return histogram.entries.joinToString(ENTRY_SEPARATOR) { "${it.key}$COUNT_SEPARATOR${it.value}" }
+    }
+
+    private fun keyOf(type: AdapterViewType): String? {
+        return if (type is Enum<*>) "${type.javaClass.name}#${type.name}" else null
+    }
+
+    companion object {
+        const val DEFAULT_MAX_PER_TYPE = 8
+        const val DEFAULT_MAX_TOTAL = 24
+
+        private const val PREFERENCE_PREFIX = "rc_prefetch_histogram:"
+        private const val ENTRY_SEPARATOR = ";"
+        private const val COUNT_SEPARATOR = '='
+        // Weight of the latest visit in the running average.
+        private const val VISIT_WEIGHT = 0.5f
+        private const val MIN_AVERAGE = 0.25f
+    }
+}
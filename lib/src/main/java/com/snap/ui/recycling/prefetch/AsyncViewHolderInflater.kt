@@ -0,0 +1,210 @@
+package com.snap.ui.recycling.prefetch
+
+import android.util.ArrayMap
+import android.util.Log
+import android.view.LayoutInflater
+import android.view.ViewGroup
+import androidx.annotation.MainThread
+import androidx.core.os.TraceCompat
+import com.snap.ui.recycling.AdapterViewType
+import com.snap.ui.recycling.factory.ViewFactory
+import com.snap.ui.recycling.factory.ViewModelViewHolder
+import io.reactivex.Scheduler
+import io.reactivex.Single
+import io.reactivex.android.schedulers.AndroidSchedulers
+import io.reactivex.disposables.CompositeDisposable
+import io.reactivex.disposables.Disposable
+import io.reactivex.observers.DisposableSingleObserver
+import java.util.ArrayDeque
+
+private const val TAG = "AsyncViewHolderInflater"
+
+/**
+ * Keeps a pool of view holders inflated on [inflationScheduler] for each view type [ViewFactory] creates. Once a
+ * type's pool, counting inflations in flight, falls to [lowWaterMark], it is refilled up to [highWaterMark] in the
+ * background. Types are pooled from the first time they are requested.
+ *
+ * Set on a [ViewFactory] with [ViewFactory.setAsyncInflater]. With [usePlaceholders], a pool miss returns an empty
+ * container right away, and the view is inflated in the background and swapped into it once ready, so that a miss
+ * never blocks a frame. Otherwise, a miss inflates on the main thread. Placeholders still waiting for their view
+ * when this is disposed get one inflated on the main thread.
+ */
+class AsyncViewHolderInflater @JvmOverloads constructor(
+    private val viewFactory: ViewFactory,
+    private val inflationScheduler: Scheduler,
+    private val layoutInflater: LayoutInflater,
+    private val parent: ViewGroup,
+    private val lowWaterMark: Int = DEFAULT_LOW_WATER_MARK,
+    private val highWaterMark: Int = DEFAULT_HIGH_WATER_MARK,
+    val usePlaceholders: Boolean = false,
+    private val mainThreadScheduler: Scheduler = AndroidSchedulers.mainThread()
+) : ViewHolderPrefetcher, Disposable {
+
+    /**
+     * Receives a view holder inflated for a placeholder, on the main thread.
+     */
+    interface Callback {
+        fun onInflated(viewHolder: ViewModelViewHolder<*>)
+    }
+
+    private class Pool {
+        val holders = ArrayDeque<ViewModelViewHolder<*>>()
+        var inFlight = 0
+    }
+
+    private class Inflation(val viewType: AdapterViewType, val callback: Callback)
+
+    private val pools = ArrayMap<AdapterViewType, Pool>()
+    private val inflaterProvider = InflaterCache()
+    private val disposables = CompositeDisposable()
+    // Inflations whose callback has not been called yet.
+    private val pendingInflations = ArrayList<Inflation>()
+
+    init {
+        require(lowWaterMark in 0 until highWaterMark) { "Invalid water marks $lowWaterMark, $highWaterMark" }
+    }
+
+    /**
+     * Returns a pooled view holder for [viewType], if any, and starts refilling its pool if it is running low.
+     */
+    override fun getPrefetchedViewHolder(viewType: AdapterViewType): ViewModelViewHolder<*>? {
+        val holder: ViewModelViewHolder<*>?
+        val refillCount: Int
+        synchronized(pools) {
+            val pool = pools[viewType] ?: Pool().also { pools[viewType] = it }
+            holder = pool.holders.pollFirst()
+            val available = pool.holders.size + pool.inFlight
+            refillCount = if (available <= lowWaterMark) highWaterMark - available else 0
+            pool.inFlight += refillCount
+        }
+        for (i in 0 until refillCount) {
+            refill(viewType)
+        }
+        return holder
+    }
+
+    /**
+     * Inflates a view holder for [viewType] in the background and hands it to [callback]. If the background
+     * inflation fails, the holder is inflated on the main thread instead.
+     */
+    @MainThread
+    fun inflate(viewType: AdapterViewType, callback: Callback) {
+        val inflation = Inflation(viewType, callback)
+        synchronized(pendingInflations) {
+            pendingInflations.add(inflation)
+        }
+        subscribeOnce(Single.fromCallable { createViewHolder(viewType) }
+                .subscribeOn(inflationScheduler)
+                .observeOn(mainThreadScheduler),
+                { holder -> complete(inflation, holder) },
+                { error ->
+                    Log.e(TAG, "Failed to inflate $viewType in the background", error)
+                    complete(inflation, inflateOnMainThread(viewType))
+                })
+    }
+
+    /**
+     * Number of pooled view holders for [viewType].
+     */
+    fun getPooledCount(viewType: AdapterViewType): Int {
+        synchronized(pools) {
+            return pools[viewType]?.holders?.size ?: 0
+        }
+    }
+
+    override fun dispose() {
+        disposables.dispose()
+        synchronized(pools) {
+            pools.clear()
+        }
+        val pending = synchronized(pendingInflations) {
+            pendingInflations.toList().also { pendingInflations.clear() }
+        }
+        if (pending.isNotEmpty()) {
+            // Their placeholders would otherwise stay empty.
+            mainThreadScheduler.scheduleDirect {
+                for (inflation in pending) {
+                    inflation.callback.onInflated(inflateOnMainThread(inflation.viewType))
+                }
+            }
+        }
+    }
+
+    override fun isDisposed() = disposables.isDisposed
+
+    private fun refill(viewType: AdapterViewType) {
+        subscribeOnce(Single.fromCallable { createViewHolder(viewType) }
+                .subscribeOn(inflationScheduler),
+                { holder -> addToPool(viewType, holder) },
+                { error ->
+                    // Layout inflation can race with theme initialization. The pool is an optimization, so a miss
+                    // falls back to inflating on demand.
+                    Log.e(TAG, "Failed to inflate", error)
+                    addToPool(viewType, null)
+                })
+    }
+
+    /**
+     * Subscribes to [single], keeping the subscription in [disposables] only until it terminates, so that finished
+     * inflations don't keep their view holders reachable.
+     */
+    private fun <T> subscribeOnce(single: Single<T>, success: (T) -> Unit, failure: (Throwable) -> Unit) {
+        val observer = object : DisposableSingleObserver<T>() {
+            override fun onSuccess(value: T) {
+                disposables.delete(this)
+                success(value)
+            }
+
+            override fun onError(error: Throwable) {
+                disposables.delete(this)
+                failure(error)
+            }
+        }
+        // Added before subscribing, since the single may terminate during the subscription.
+        if (disposables.add(observer)) {
+            single.subscribe(observer)
+        }
+    }
+
+    @MainThread
+    private fun complete(inflation: Inflation, holder: ViewModelViewHolder<*>) {
+        val pending = synchronized(pendingInflations) {
+            pendingInflations.remove(inflation)
+        }
+        if (pending) {
+            inflation.callback.onInflated(holder)
+        }
+    }
+
+    @MainThread
+    private fun inflateOnMainThread(viewType: AdapterViewType): ViewModelViewHolder<*> {
+        return ViewFactory.createViewHolderForType(viewFactory, viewType,
+                ViewFactory.createView(parent.context, viewType, parent, layoutInflater))
+    }
+
+    private fun createViewHolder(viewType: AdapterViewType): ViewModelViewHolder<*> {
+        try {
+            TraceCompat.beginSection("inflate:$viewType")
+            val threadInflater = inflaterProvider.threadInflater(layoutInflater)
+            val view = ViewFactory.createView(threadInflater.context, viewType, parent, threadInflater)
+            return ViewFactory.createViewHolderForType(viewFactory, viewType, view)
+        } finally {
+            TraceCompat.endSection()
+        }
+    }
+
+    private fun addToPool(viewType: AdapterViewType, holder: ViewModelViewHolder<*>?) {
+        synchronized(pools) {
+            val pool = pools[viewType] ?: return
+            pool.inFlight--
+            if (holder != null) {
+                pool.holders.addLast(holder)
+            }
+        }
+    }
+
+    companion object {
+        const val DEFAULT_LOW_WATER_MARK = 1
+        const val DEFAULT_HIGH_WATER_MARK = 3
+    }
+}
@@ -1,6 +1,7 @@
 package com.snap.ui.recycling.prefetch
 
-import android.util.ArrayMap
+import android.content.ComponentCallbacks2
+import android.content.res.Configuration
 import android.util.Log
 import android.view.LayoutInflater
 import android.view.View
@@ -13,30 +14,51 @@ import io.reactivex.Completable
 import io.reactivex.Observable
 import io.reactivex.Scheduler
 import io.reactivex.Single
-import java.util.LinkedList
 
 /**
  * A [ViewHolderPrefetcher] with disposable preloading.
+ *
+ * Preloaded view holders are kept in a [ConcurrentPrefetchPool], bounded by estimated memory, so that taking one on
+ * the main thread never waits on inflation threads. Pass [maxPerType] to also bound each type; by default all the
+ * view holders [load] asks for are kept. Register the prefetcher with
+ * [android.content.Context.registerComponentCallbacks] to free them on memory pressure.
  */
-class CompletableViewHolderPrefetcher constructor(
+class CompletableViewHolderPrefetcher @JvmOverloads constructor(
     private val viewFactory: ViewFactory,
     private val inflationScheduler: Scheduler,
     private val layoutInflater: LayoutInflater,
-    private val parent: ViewGroup
-) : ViewHolderPrefetcher {
+    private val parent: ViewGroup,
+    maxPerType: Int = PrefetchPool.UNBOUNDED,
+    maxTotalCost: Long = PrefetchPool.defaultMaxTotalCost()
+) : ViewHolderPrefetcher, ComponentCallbacks2 {
 
-    private val inflated = ArrayMap<AdapterViewType, LinkedList<ViewModelViewHolder<*>>>()
+    private val inflated = ConcurrentPrefetchPool<ViewModelViewHolder<*>>(
+            viewFactory.availableViewTypes.size, maxPerType, maxTotalCost)
     private val inflaterProvider = InflaterCache()
 
+    val hitCount: Long
+        get() = inflated.hitCount
+
+    val missCount: Long
+        get() = inflated.missCount
+
+    val evictionCount: Long
+        get() = inflated.evictionCount
+
     override fun getPrefetchedViewHolder(viewType: AdapterViewType): ViewModelViewHolder<*>? {
-        synchronized(inflated) {
-            val views = inflated[viewType]
-            return if (!views.isNullOrEmpty()) {
-                views.remove()
-            } else null
-        }
+        return inflated.take(viewFactory.getViewTypeId(viewType))
+    }
+
+    override fun onTrimMemory(level: Int) {
+        inflated.onTrimMemory(level)
+    }
+
+    override fun onLowMemory() {
+        inflated.clear()
     }
 
+    override fun onConfigurationChanged(newConfig: Configuration) {}
+
     /**
      * Takes a mapping from layoutId to a count and preloads each view that many times.
      */
@@ -85,14 +107,9 @@ class CompletableViewHolderPrefetcher constructor(
         if (inflation !== FAILED_INFLATION) {
             try {
                 TraceCompat.beginSection("addPreload")
-                synchronized(inflated) {
-                    var views: LinkedList<ViewModelViewHolder<*>>? = inflated[inflation.viewType]
-                    if (views == null) {
-                        views = LinkedList()
-                        inflated[inflation.viewType] = views
-                    }
-                    views.add(inflation.viewHolder!!)
-                }
+                val holder = inflation.viewHolder!!
+                val viewTypeId = viewFactory.getViewTypeId(inflation.viewType!!)
+                inflated.offer(viewTypeId, holder, PrefetchPool.estimateCost(holder.itemView))
             } finally {
                 TraceCompat.endSection()
             }
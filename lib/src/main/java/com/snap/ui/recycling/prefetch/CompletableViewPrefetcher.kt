@@ -1,7 +1,8 @@
 package com.snap.ui.recycling.prefetch
 
+import android.content.ComponentCallbacks2
+import android.content.res.Configuration
 import android.util.Log
-import android.util.SparseArray
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
@@ -13,30 +14,53 @@ import io.reactivex.Scheduler
 import io.reactivex.Single
 import io.reactivex.android.MainThreadDisposable
 import io.reactivex.android.schedulers.AndroidSchedulers
-import java.util.LinkedList
 import java.util.concurrent.atomic.AtomicBoolean
 
 private const val TAG = "RxViewPrefetcher"
 
 /**
  * A [ViewPrefetcher] with disposable preloading.
+ *
+ * Preloaded views are kept in a [PrefetchPool], bounded by estimated memory and, if [maxPerType] is passed, per
+ * layout. Register the prefetcher with [android.content.Context.registerComponentCallbacks] to free them on memory
+ * pressure.
  */
-class CompletableViewPrefetcher constructor(
+class CompletableViewPrefetcher @JvmOverloads constructor(
     private val inflationScheduler: Scheduler,
     private val layoutInflater: LayoutInflater,
-    private val parent: ViewGroup?
-) : MainThreadDisposable(), ViewPrefetcher {
+    private val parent: ViewGroup?,
+    maxPerType: Int = PrefetchPool.UNBOUNDED,
+    maxTotalCost: Long = PrefetchPool.defaultMaxTotalCost()
+) : MainThreadDisposable(), ViewPrefetcher, ComponentCallbacks2 {
 
     private val disposed = AtomicBoolean(false)
-    private val inflated = SparseArray<LinkedList<View>>()
+    private val inflated = PrefetchPool<Int, View>(maxPerType, maxTotalCost)
     private val inflaterProvider = InflaterCache()
 
+    val hitCount: Long
+        get() = inflated.hitCount
+
+    val missCount: Long
+        get() = inflated.missCount
+
+    val evictionCount: Long
+        get() = inflated.evictionCount
+
     @MainThread
     override fun getPrefetchedView(layoutId: Int): View? {
-        val views = inflated.get(layoutId)
-        return if (views != null && !views.isEmpty()) views.remove() else null
+        return inflated.take(layoutId)
     }
 
+    override fun onTrimMemory(level: Int) {
+        inflated.onTrimMemory(level)
+    }
+
+    override fun onLowMemory() {
+        inflated.clear()
+    }
+
+    override fun onConfigurationChanged(newConfig: Configuration) {}
+
     /**
      * Takes a mapping from layoutId to a count and preloads each view that many times.
      */
@@ -80,9 +104,6 @@ class CompletableViewPrefetcher constructor(
     @MainThread
     override fun onDispose() {
         disposed.set(true)
-        for (i in 0 until inflated.size()) {
-            inflated.get(inflated.keyAt(i)).clear()
-        }
         inflated.clear()
     }
 
@@ -90,13 +111,9 @@ class CompletableViewPrefetcher constructor(
         if (disposed.get()) {
             return inflation
         }
-        var views = inflated.get(inflation.layoutId)
-        if (views == null) {
-            views = LinkedList()
-            inflated.put(inflation.layoutId, views)
-        }
         // We should have filtered out the inflation with null view case before this
-        views.add(inflation.view!!)
+        val view = inflation.view!!
+        inflated.add(inflation.layoutId, view, PrefetchPool.estimateCost(view))
         return inflation
     }
 
@@ -0,0 +1,257 @@
+package com.snap.ui.recycling.prefetch
+
+import android.content.ComponentCallbacks2
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.AtomicReference
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * Like [PrefetchPool], but for items produced on background threads and taken on the main thread, indexed by view
+ * type id. Each type is a queue with many producers and a single consumer, so [offer] never blocks and [take] never
+ * waits on a producer. A type bounded by [maxPerType] is a ring buffer, which allocates nothing per item; an
+ * unbounded one is a linked queue.
+ *
+ * [offer] may be called from any thread. [take], [onTrimMemory] and [clear] must be called from the consumer
+ * thread, usually the main thread. An item whose producer has not finished publishing it is not seen by [take]
+ * until it has.
+ *
+ * The memory budget is enforced when items are offered. When an offer is turned down for lack of budget, the next
+ * [take] evicts an item of the least recently taken type to make room.
+ */
+class ConcurrentPrefetchPool<V : Any>(
+    private val typeCount: Int,
+    private val maxPerType: Int = PrefetchPool.UNBOUNDED,
+    private val maxTotalCost: Long = PrefetchPool.defaultMaxTotalCost()
+) {
+
+    private abstract class TypeQueue {
+        val producerIndex = AtomicLong()
+        // Written by the consumer only.
+        @Volatile var consumerIndex = 0L
+        var lastTaken = 0L
+        // Cost of the item last polled.
+        var polledCost = 0L
+
+        /**
+         * Adds [item] unless [maxSize] items were added and not polled yet.
+         */
+        abstract fun offer(item: Any, cost: Long, maxSize: Int): Boolean
+
+        /**
+         * Removes the eldest published item. Called from the consumer only.
+         */
+        abstract fun poll(): Any?
+
+        /**
+         * Cost of the item [poll] would return, or 0 if there is none.
+         */
+        abstract fun peekCost(): Long
+    }
+
+    private class Ring(capacity: Int) : TypeQueue() {
+        val mask = capacity - 1
+        val items = AtomicReferenceArray<Any?>(capacity)
+        val costs = AtomicLongArray(capacity)
+
+        override fun offer(item: Any, cost: Long, maxSize: Int): Boolean {
+            var index: Long
+            do {
+                index = producerIndex.get()
+                if (index - consumerIndex >= maxSize) {
+                    return false
+                }
+            } while (!producerIndex.compareAndSet(index, index + 1))
+
+            val slot = (index and mask.toLong()).toInt()
+            costs.set(slot, cost)
+            // Publishes the item and, before it, its cost.
+            items.lazySet(slot, item)
+            return true
+        }
+
+        override fun poll(): Any? {
+            val index = consumerIndex
+            val slot = (index and mask.toLong()).toInt()
+            val item = items.get(slot) ?: return null
+            polledCost = costs.get(slot)
+            items.lazySet(slot, null)
+            consumerIndex = index + 1
+            return item
+        }
+
+        override fun peekCost(): Long = costs.get((consumerIndex and mask.toLong()).toInt())
+    }
+
+    private class Node(var item: Any?, val cost: Long) {
+        @Volatile var next: Node? = null
+    }
+
+    private class LinkedQueue : TypeQueue() {
+        // The last polled node, whose next node is the eldest item. Read and written by the consumer only.
+        private var head = Node(null, 0)
+        private val tail = AtomicReference(head)
+
+        override fun offer(item: Any, cost: Long, maxSize: Int): Boolean {
+            producerIndex.incrementAndGet()
+            val node = Node(item, cost)
+            // Publishes the node once it is linked, so the consumer sees items in the order they were added.
+            tail.getAndSet(node).next = node
+            return true
+        }
+
+        override fun poll(): Any? {
+            val next = head.next ?: return null
+            val item = next.item
+            next.item = null
+            head = next
+            polledCost = next.cost
+            consumerIndex++
+            return item
+        }
+
+        override fun peekCost(): Long = head.next?.cost ?: 0L
+    }
+
+    private val queues = AtomicReferenceArray<TypeQueue?>(typeCount)
+    private val totalCost = AtomicLong()
+    private val evictions = AtomicLong()
+    @Volatile private var budgetExceeded = false
+
+    // Written by the consumer only.
+    @Volatile var hitCount = 0L
+        private set
+    @Volatile var missCount = 0L
+        private set
+    private var takeCount = 0L
+
+    /**
+     * Items removed on memory pressure or to make room, or turned down because their type or the budget was full.
+     */
+    val evictionCount: Long
+        get() = evictions.get()
+
+    init {
+        require(typeCount >= 0 && maxPerType > 0 && maxTotalCost > 0) {
+            "Invalid limits $typeCount, $maxPerType, $maxTotalCost"
+        }
+    }
+
+    /**
+     * Adds [item] of type [typeId], of estimated memory [cost]. Returns false if it was turned down.
+     */
+    fun offer(typeId: Int, item: V, cost: Long): Boolean {
+        if (typeId !in 0 until typeCount) {
+            return false
+        }
+        if (!reserve(cost)) {
+            budgetExceeded = true
+            evictions.incrementAndGet()
+            return false
+        }
+        if (!queueFor(typeId).offer(item, cost, maxPerType)) {
+            totalCost.addAndGet(-cost)
+            evictions.incrementAndGet()
+            return false
+        }
+        return true
+    }
+
+    fun take(typeId: Int): V? {
+        val queue = if (typeId in 0 until typeCount) queues.get(typeId) else null
+        val item = if (queue != null) poll(queue) else null
+        if (queue == null || item == null) {
+            missCount++
+            return null
+        }
+        hitCount++
+        queue.lastTaken = ++takeCount
+        if (budgetExceeded) {
+            budgetExceeded = false
+            evictLeastRecentlyTaken(queue)
+        }
+        return item
+    }
+
+    /**
+     * Number of items of type [typeId], including ones still being published.
+     */
+    fun size(typeId: Int): Int {
+        val queue = if (typeId in 0 until typeCount) queues.get(typeId) else null
+        return if (queue != null) (queue.producerIndex.get() - queue.consumerIndex).toInt() else 0
+    }
+
+    fun getTotalCost() = totalCost.get()
+
+    fun clear() {
+        for (i in 0 until typeCount) {
+            val queue = queues.get(i) ?: continue
+            while (true) {
+                poll(queue) ?: break
+            }
+        }
+    }
+
+    /**
+     * Frees items for a [ComponentCallbacks2.onTrimMemory] level, as [PrefetchPool.onTrimMemory] does.
+     */
+    fun onTrimMemory(level: Int) {
+        val target = when {
+            level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL -> 0L
+            level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW -> maxTotalCost / 2
+            else -> return
+        }
+        val byCost = (0 until typeCount).mapNotNull { queues.get(it) }.sortedByDescending { it.peekCost() }
+        for (queue in byCost) {
+            while (totalCost.get() > target && poll(queue) != null) {
+                evictions.incrementAndGet()
+            }
+        }
+    }
+
+    private fun reserve(cost: Long): Boolean {
+        while (true) {
+            val current = totalCost.get()
+            if (current + cost > maxTotalCost) {
+                return false
+            }
+            if (totalCost.compareAndSet(current, current + cost)) {
+                return true
+            }
+        }
+    }
+
+    private fun queueFor(typeId: Int): TypeQueue {
+        val queue = queues.get(typeId)
+        if (queue != null) {
+            return queue
+        }
+        val newQueue = if (maxPerType == PrefetchPool.UNBOUNDED) {
+            LinkedQueue()
+        } else {
+            Ring(Integer.highestOneBit(maxPerType * 2 - 1))
+        }
+        queues.compareAndSet(typeId, null, newQueue)
+        return queues.get(typeId)!!
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun poll(queue: TypeQueue): V? {
+        val item = queue.poll() ?: return null
+        totalCost.addAndGet(-queue.polledCost)
+        return item as V
+    }
+
+    private fun evictLeastRecentlyTaken(taken: TypeQueue) {
+        var oldest: TypeQueue? = null
+        for (i in 0 until typeCount) {
+            val queue = queues.get(i) ?: continue
+            if (queue !== taken && size(i) > 0 && (oldest == null || queue.lastTaken < oldest.lastTaken)) {
+                oldest = queue
+            }
+        }
+        if (oldest != null && poll(oldest) != null) {
+            evictions.incrementAndGet()
+        }
+    }
+}
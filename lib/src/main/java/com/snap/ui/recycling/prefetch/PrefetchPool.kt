@@ -0,0 +1,170 @@
+package com.snap.ui.recycling.prefetch
+
+import android.content.ComponentCallbacks2
+import android.view.View
+import android.view.ViewGroup
+import java.util.ArrayDeque
+
+/**
+ * Prefetched items grouped by type, for the prefetchers. All types together hold at most [maxTotalCost] of
+ * estimated memory, and each type at most [maxPerType] items if bounded. When an add goes over the budget, items are
+ * evicted from the least recently used types first. [onTrimMemory] drops whole types, the most expensive items first.
+ *
+ * Safe to use from any thread.
+ */
+class PrefetchPool<K, V>(
+    private val maxPerType: Int = UNBOUNDED,
+    private val maxTotalCost: Long = defaultMaxTotalCost()
+) {
+
+    private class TypePool<V> {
+        val items = ArrayDeque<V>()
+        // Estimated cost of one item, from the latest add.
+        var itemCost = 0L
+    }
+
+    // In access order, so that the eldest type is the least recently used.
+    private val pools = LinkedHashMap<K, TypePool<V>>(16, 0.75f, true)
+    private var totalCost = 0L
+
+    @get:Synchronized
+    var hitCount = 0L
+        private set
+
+    @get:Synchronized
+    var missCount = 0L
+        private set
+
+    /**
+     * Items removed to stay within the limits or on memory pressure, or not added because their type was full.
+     */
+    @get:Synchronized
+    var evictionCount = 0L
+        private set
+
+    init {
+        require(maxPerType > 0 && maxTotalCost > 0) { "Invalid limits $maxPerType, $maxTotalCost" }
+    }
+
+    @Synchronized
+    fun take(key: K): V? {
+        val pool = pools[key]
+        val item = pool?.items?.pollFirst()
+        if (pool == null || item == null) {
+            missCount++
+            return null
+        }
+        totalCost -= pool.itemCost
+        hitCount++
+        return item
+    }
+
+    /**
+     * Adds [item], of estimated memory [cost], unless its type is full. Returns false if it was not added.
+     */
+    @Synchronized
+    fun add(key: K, item: V, cost: Long): Boolean {
+        val pool = pools[key] ?: TypePool<V>().also { pools[key] = it }
+        if (pool.items.size >= maxPerType || cost > maxTotalCost) {
+            evictionCount++
+            return false
+        }
+        // Keep the total consistent if the estimate for this type changed.
+        totalCost += pool.items.size * (cost - pool.itemCost) + cost
+        pool.itemCost = cost
+        pool.items.addLast(item)
+        trimToCost(maxTotalCost, key)
+        return true
+    }
+
+    @Synchronized
+    fun size(key: K): Int = pools[key]?.items?.size ?: 0
+
+    @Synchronized
+    fun getTotalCost() = totalCost
+
+    @Synchronized
+    fun clear() {
+        pools.clear()
+        totalCost = 0
+    }
+
+    /**
+     * Frees prefetched items for a [ComponentCallbacks2.onTrimMemory] level: down to half the budget while the app
+     * is running low on memory, and everything once memory is critical or the UI is hidden.
+     */
+    @Synchronized
+    fun onTrimMemory(level: Int) {
+        val target = when {
+            level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL -> 0L
+            level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW -> maxTotalCost / 2
+            else -> return
+        }
+        val byCost = pools.values.sortedByDescending { it.itemCost }
+        for (pool in byCost) {
+            if (totalCost <= target) {
+                break
+            }
+            drop(pool, pool.items.size)
+        }
+    }
+
+    private fun trimToCost(target: Long, keep: K) {
+        val iterator = pools.entries.iterator()
+        while (totalCost > target && iterator.hasNext()) {
+            val entry = iterator.next()
+            if (entry.key == keep) {
+                continue
+            }
+            val pool = entry.value
+            while (totalCost > target && pool.items.isNotEmpty()) {
+                drop(pool, 1)
+            }
+        }
+        // Only the type just added to is left over the budget.
+        val pool = pools[keep] ?: return
+        while (totalCost > target && pool.items.size > 1) {
+            drop(pool, 1)
+        }
+    }
+
+    private fun drop(pool: TypePool<V>, count: Int) {
+        for (i in 0 until count) {
+            pool.items.pollFirst() ?: return
+            totalCost -= pool.itemCost
+            evictionCount++
+        }
+    }
+
+    companion object {
+        /**
+         * A [maxPerType] that keeps as many items of a type as were added, within the memory budget.
+         */
+        const val UNBOUNDED = Int.MAX_VALUE
+
+        // A rough per-view estimate, covering the view, its layout params and its background and text state.
+        private const val VIEW_COST_BYTES = 2048L
+
+        /**
+         * A share of the heap for prefetched views.
+         */
+        @JvmStatic
+        fun defaultMaxTotalCost() = Runtime.getRuntime().maxMemory() / 32
+
+        /**
+         * Estimates the memory held by [view] from the number of views in its hierarchy.
+         */
+        @JvmStatic
+        fun estimateCost(view: View): Long = countViews(view) * VIEW_COST_BYTES
+
+        private fun countViews(view: View): Long {
+            var views = 1L
+            if (view is ViewGroup) {
+                for (i in 0 until view.childCount) {
+                    views += countViews(view.getChildAt(i))
+                }
+            }
+            return views
+        }
+    }
+}
@@ -3,8 +3,7 @@ package com.snap.ui.recycling.viewmodel;
 import androidx.annotation.CallSuper;
 
 import com.snap.ui.recycling.AdapterViewType;
-
-import java.util.concurrent.atomic.AtomicLong;
+import com.snap.ui.util.StableIds;
 
 import javax.annotation.Nullable;
 
@@ -20,7 +19,15 @@ import javax.annotation.Nullable;
  **/
 public class AdapterViewModel {
 
-    private static final AtomicLong sIdGenerator = new AtomicLong();
+    /**
+     * Returned by {@link #computeContentFingerprint()} by models that don't fingerprint their contents.
+     */
+    public static final long NO_FINGERPRINT = 0;
+
+    /**
+     * Returned by {@link #getChangedFields(AdapterViewModel)} when any field may have changed.
+     */
+    public static final long ALL_FIELDS_CHANGED = -1L;
 
     protected final long mId;
 
@@ -28,18 +35,31 @@ public class AdapterViewModel {
     private @Nullable String mContentDescription;
     private @Nullable String mDebugInfo;
 
+    // Written before mFingerprintComputed, whose volatile write publishes it to other threads.
+    private long mContentFingerprint;
+    private volatile boolean mFingerprintComputed;
+
     /**
      * Generates a unique ID for an item in a content group.  Whenever possible, the ID should be assigned by using a
-     * unique property of the item (story ID, user name, etc), to allow reuse.
+     * unique property of the item (story ID, user name, etc), to allow reuse, see
+     * {@link #AdapterViewModel(AdapterViewType, CharSequence)}.
      */
     public static long generateItemId() {
-        return sIdGenerator.incrementAndGet();
+        return StableIds.next();
     }
 
     public AdapterViewModel(AdapterViewType viewType) {
         this(viewType, generateItemId());
     }
 
+    /**
+     * Derives the id from a unique {@code key} of the item, so that the models built for it each time the data is
+     * emitted share an id.
+     */
+    public AdapterViewModel(AdapterViewType viewType, CharSequence key) {
+        this(viewType, StableIds.of(key));
+    }
+
     public AdapterViewModel(AdapterViewType viewType, long id) {
         mAdapterViewType = viewType;
         mId = id;
@@ -86,4 +106,74 @@ public class AdapterViewModel {
     public boolean areContentsTheSame(AdapterViewModel model) {
         return true;
     }
+
+    /**
+     * Override to report which fields of this model differ from {@code previousModel}, an older version of the
+     * same item, as bit flags defined by the model. It is only computed when a cell is rebound after a change,
+     * and is passed to {@link com.snap.ui.recycling.ViewBinding#onBindPayloads} so the binding can update only
+     * the views showing those fields.
+     */
+    public long getChangedFields(AdapterViewModel previousModel) {
+        return ALL_FIELDS_CHANGED;
+    }
+
+    /**
+     * Override to return a 64-bit hash of the contents compared by {@link #areContentsTheSame(AdapterViewModel)},
+     * so that diffing can compare two longs instead of the contents. Models with different contents must return
+     * different fingerprints, or return {@link #NO_FINGERPRINT}.
+     *
+     * It is computed at most once per model, on whichever thread diffs it first, so the contents must not change
+     * afterwards.
+     */
+    protected long computeContentFingerprint() {
+        return NO_FINGERPRINT;
+    }
+
+    /**
+     * Override to return true if two models with the same fingerprint may still have different contents,
+     * for instance when the fingerprint is built from hash codes. Matching fingerprints are then confirmed with
+     * {@link #areContentsTheSame(AdapterViewModel)}; differing fingerprints are still trusted.
+     */
+    protected boolean shouldVerifyFingerprintMatch() {
+        return false;
+    }
+
+    /**
+     * Returns the cached result of {@link #computeContentFingerprint()}.
+     */
+    public final long getContentFingerprint() {
+        if (!mFingerprintComputed) {
+            mContentFingerprint = computeContentFingerprint();
+            mFingerprintComputed = true;
+        }
+        return mContentFingerprint;
+    }
+
+    /**
+     * Used by the adapters' diff callbacks in place of {@link #areContentsTheSame(AdapterViewModel)}. Compares
+     * content fingerprints when both models have one, and only calls areContentsTheSame when a model lacks a
+     * fingerprint or asks for matches to be verified.
+     */
+    public final boolean hasSameContents(AdapterViewModel model) {
+        long fingerprint = getContentFingerprint();
+        long otherFingerprint = model.getContentFingerprint();
+        if (fingerprint == NO_FINGERPRINT || otherFingerprint == NO_FINGERPRINT) {
+            return areContentsTheSame(model);
+        }
+        if (fingerprint != otherFingerprint) {
+            return false;
+        }
+        return !(shouldVerifyFingerprintMatch() || model.shouldVerifyFingerprintMatch()) || areContentsTheSame(model);
+    }
+
+    /**
+     * Mixes {@code value} into {@code fingerprint}, for use in {@link #computeContentFingerprint()}. The result
+     * depends on the order in which values are mixed in.
+     */
+    public static long combineFingerprint(long fingerprint, long value) {
+        long hash = (fingerprint ^ value) * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        // Keep NO_FINGERPRINT meaning "no fingerprint".
+        return hash == NO_FINGERPRINT ? 1 : hash;
+    }
 }
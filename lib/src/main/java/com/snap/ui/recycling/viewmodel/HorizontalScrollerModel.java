@@ -19,6 +19,7 @@ public class HorizontalScrollerModel<D extends AdapterViewModel> extends ListVie
     private final int mScrollerHeight;
     private final int mPadding;
     private final int mOffset;
+    private final int mVisibleItemEstimate;
 
     public HorizontalScrollerModel(
             AdapterViewType scrollerViewType,
@@ -29,12 +30,30 @@ public class HorizontalScrollerModel<D extends AdapterViewModel> extends ListVie
             int scrollerHeight,
             int padding,
             int offset) {
+        this(scrollerViewType, viewFactory, eventDispatcher, viewModels, id, scrollerHeight, padding, offset, 0);
+    }
+
+    /**
+     * @param visibleItemEstimate how many items the scroller shows at once, which it prefetches when it is about to
+     *                            scroll on screen. 0 if unknown.
+     */
+    public HorizontalScrollerModel(
+            AdapterViewType scrollerViewType,
+            ViewFactory viewFactory,
+            EventDispatcher eventDispatcher,
+            List<D> viewModels,
+            long id,
+            int scrollerHeight,
+            int padding,
+            int offset,
+            int visibleItemEstimate) {
         super(viewModels, scrollerViewType, id);
         mViewFactory = viewFactory;
         mScrollerHeight = scrollerHeight;
         mEventDispatcher = eventDispatcher;
         mPadding = padding;
         mOffset = offset;
+        mVisibleItemEstimate = visibleItemEstimate;
     }
 
     public ViewFactory getViewFactory() {
@@ -56,4 +75,16 @@ public class HorizontalScrollerModel<D extends AdapterViewModel> extends ListVie
     public int getOffset() {
         return mOffset;
     }
+
+    public int getVisibleItemEstimate() {
+        return mVisibleItemEstimate;
+    }
+
+    /**
+     * Only the child models are compared, and the fingerprint covers them.
+     */
+    @Override
+    protected boolean shouldVerifyFingerprintMatch() {
+        return fingerprintUsesHashCodes();
+    }
 }
@@ -16,6 +16,9 @@ public class ListViewModel <D extends AdapterViewModel> extends AdapterViewModel
 
     private final List<D> mViewModels;
 
+    // Set by computeContentFingerprint if some child model has no fingerprint of its own.
+    private volatile boolean mFingerprintUsesHashCodes;
+
     public ListViewModel(List<D> viewModels, AdapterViewType viewType, long id) {
         super(viewType, id);
         mViewModels = viewModels;
@@ -60,6 +63,46 @@ public class ListViewModel <D extends AdapterViewModel> extends AdapterViewModel
         return mViewModels.equals(other.mViewModels);
     }
 
+    /**
+     * Fingerprints the child models in order, so that rows whose children changed are told apart without
+     * comparing the lists. Children without a fingerprint contribute their hash code, in which case a matching
+     * fingerprint is verified with {@link #areContentsTheSame(AdapterViewModel)}. So is a match between subclasses,
+     * which may compare more than the children; those that compare only the children can override
+     * {@link #shouldVerifyFingerprintMatch()} to return {@link #fingerprintUsesHashCodes()}.
+     */
+    @Override
+    protected long computeContentFingerprint() {
+        long fingerprint = combineFingerprint(mAdapterViewType.hashCode(), mViewModels.size());
+        boolean usesHashCodes = false;
+        for (int i = 0; i < mViewModels.size(); i++) {
+            D model = mViewModels.get(i);
+            long childFingerprint = model == null ? NO_FINGERPRINT : model.getContentFingerprint();
+            if (childFingerprint == NO_FINGERPRINT) {
+                usesHashCodes = true;
+                childFingerprint = model == null ? 0 : model.hashCode();
+            } else {
+                fingerprint = combineFingerprint(fingerprint, model.getId());
+                fingerprint = combineFingerprint(fingerprint, model.getType().hashCode());
+            }
+            fingerprint = combineFingerprint(fingerprint, childFingerprint);
+        }
+        mFingerprintUsesHashCodes = usesHashCodes;
+        return fingerprint;
+    }
+
+    @Override
+    protected boolean shouldVerifyFingerprintMatch() {
+        return getClass() != ListViewModel.class || fingerprintUsesHashCodes();
+    }
+
+    /**
+     * Whether some child model has no fingerprint, so that the content fingerprint includes its hash code.
+     */
+    protected final boolean fingerprintUsesHashCodes() {
+        getContentFingerprint();
+        return mFingerprintUsesHashCodes;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hashCode(mViewModels, mAdapterViewType);
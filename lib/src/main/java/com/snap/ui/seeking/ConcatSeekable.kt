@@ -2,25 +2,83 @@ package com.snap.ui.seeking
 
 /**
  * A Seekable made by concatenating a list of Seekables together.
+ *
+ * The start offset of each child is computed once at construction, so [size] is O(1) and
+ * [get] is a binary search over the children rather than a walk. Like every [Seekable],
+ * the children are expected to have a fixed size.
  */
-class ConcatSeekable<T>(private val list: List<Seekable<T>>) : Seekable<T> {
+class ConcatSeekable<T>(list: List<Seekable<T>>) : Seekable<T> {
 
-    override fun get(position: Int): T {
-        var positionInSection = position
-        for (i in 0 until list.size) {
-            val section = list[i]
-            val sectionSize = section.size()
-            if (positionInSection < sectionSize) {
-                return section[positionInSection]
+    private val list: List<Seekable<T>> = list.toList()
+
+    // offsets[i] is the position of the first item of list[i]; offsets[list.size] is the total size.
+    private val offsets = IntArray(this.list.size + 1)
+
+    /**
+     * Number of ConcatSeekable levels at and below this node. A node of plain Seekables has a depth of 1.
+     */
+    internal val depth: Int
+
+    /**
+     * Number of non-ConcatSeekable Seekables reachable from this node.
+     */
+    internal val leafCount: Int
+
+    internal val children: List<Seekable<T>>
+        get() = list
+
+    init {
+        var childDepth = 0
+        var leaves = 0
+        for (i in 0 until this.list.size) {
+            val child = this.list[i]
+            offsets[i + 1] = offsets[i] + child.size()
+            if (child is ConcatSeekable<*>) {
+                childDepth = Math.max(childDepth, child.depth)
+                leaves += child.leafCount
+            } else {
+                leaves++
             }
-            positionInSection -= sectionSize
         }
-        throw IndexOutOfBoundsException()
+        depth = childDepth + 1
+        leafCount = leaves
     }
 
-    override fun size() = list.sumBy(Seekable<T>::size)
+    override fun get(position: Int): T {
+        if (position < 0 || position >= size()) {
+            throw IndexOutOfBoundsException()
+        }
+        val index = indexOfChild(position)
+        return list[index][position - offsets[index]]
+    }
+
+    override fun size() = offsets[list.size]
 
     override fun iterator(): Iterator<T> {
         return SeekableIterator(this)
     }
+
+    /**
+     * Position of the first item of the child at [index].
+     */
+    internal fun childOffset(index: Int) = offsets[index]
+
+    /**
+     * Returns the index of the child containing [position], which must be within bounds.
+     * Empty children share their offset with the next child, so this finds the last child
+     * starting at or before [position].
+     */
+    internal fun indexOfChild(position: Int): Int {
+        var low = 0
+        var high = list.size - 1
+        while (low < high) {
+            val mid = (low + high + 1) ushr 1
+            if (offsets[mid] <= position) {
+                low = mid
+            } else {
+                high = mid - 1
+            }
+        }
+        return low
+    }
 }
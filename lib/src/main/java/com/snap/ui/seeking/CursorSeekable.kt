@@ -4,34 +4,159 @@ import android.database.Cursor
 import io.reactivex.disposables.Disposable
 import io.reactivex.functions.Function
 import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.locks.ReentrantLock
 
 /**
  * Wraps a [android.database.Cursor] as a [Seekable]. This class is disposable
  * and will close the underlying Cursor upon disposal.
+ *
+ * By default each [get] moves the cursor to the requested row and maps it. With a [blockSize], the
+ * Seekable is windowed instead: rows are mapped a block at a time, and up to [maxCachedBlocks] mapped
+ * blocks are kept, least recently used first out. A block following the last block read continues from
+ * the cursor's current row instead of seeking, so sequential iteration never seeks.
+ * Repeated reads of cached rows, as when diffing, don't touch the cursor at all.
+ *
+ * Reads move the cursor, so a Seekable that is not windowed must be read from one thread at a time. A windowed one
+ * may be read from several threads: one thread at a time fills blocks, and a row read by another thread meanwhile
+ * is mapped on its own, in between the rows of the block, rather than waiting for the whole block.
  */
-
-class CursorSeekable<T>(
+class CursorSeekable<T> @JvmOverloads constructor(
     private val cursor: Cursor,
-    internal var mapper: Function<Cursor, T>
+    mapper: Function<Cursor, T>,
+    private val blockSize: Int = 0,
+    private val maxCachedBlocks: Int = DEFAULT_MAX_CACHED_BLOCKS
 ) : Seekable<T>, Disposable {
 
+    init {
+        if (blockSize < 0 || maxCachedBlocks < 1) {
+            throw IllegalArgumentException("Invalid blockSize $blockSize or maxCachedBlocks $maxCachedBlocks")
+        }
+    }
+
+    internal var mapper: Function<Cursor, T> = mapper
+        set(value) {
+            field = value
+            evictBlocks()
+        }
+
     private val disposed = AtomicBoolean(false)
 
+    // Windowed mode: for each cache slot, the index of the block it holds or -1, the block's mapped rows, and the
+    // read that last used it, so that the least recently used block is replaced first. Guarded by this.
+    private val blockIndices = IntArray(if (blockSize > 0) maxCachedBlocks else 0) { -1 }
+    private val blockRows = arrayOfNulls<Array<Any?>>(blockIndices.size)
+    private val blockLastUsed = LongArray(blockIndices.size)
+    private var blockReads = 0L
+
+    // Windowed mode: held while filling a block, and guarding the cursor while reading a row.
+    private val fillLock = ReentrantLock()
+    private val cursorLock = Any()
+
+    // Cursor.getCount() is not free on every implementation, and it's called for every item read.
+    @Volatile
+    private var count = -1
+
     /**
      * Returns the count of the underlying cursor. Note that this forces a read
      * of the data set. You may want to ensure the first call to this method or [Cursor.getCount]
      * occurs on a background thread.
      */
     override fun size(): Int {
-        return cursor.count
+        var size = count
+        if (size < 0) {
+            size = cursor.count
+            count = size
+        }
+        return size
     }
 
     override fun get(position: Int): T {
-        if (position < 0 || position >= cursor.count) {
+        if (position < 0 || position >= size()) {
             throw IndexOutOfBoundsException()
         }
 
-        cursor.moveToPosition(position)
+        if (blockSize == 0) {
+            cursor.moveToPosition(position)
+            return map()
+        }
+
+        val blockIndex = position / blockSize
+        synchronized(this) { cachedBlock(blockIndex) }?.let { return row(it, blockIndex, position) }
+        if (!fillLock.tryLock()) {
+            return readRow(position)
+        }
+        try {
+            val block = synchronized(this) { cachedBlock(blockIndex) }
+                    ?: readBlock(blockIndex).also { synchronized(this) { cacheBlock(blockIndex, it) } }
+            return row(block, blockIndex, position)
+        } finally {
+            fillLock.unlock()
+        }
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun row(block: Array<Any?>, blockIndex: Int, position: Int) = block[position - blockIndex * blockSize] as T
+
+    private fun readRow(position: Int): T {
+        synchronized(cursorLock) {
+            cursor.moveToPosition(position)
+            return map()
+        }
+    }
+
+    private fun cachedBlock(blockIndex: Int): Array<Any?>? {
+        for (slot in 0 until blockIndices.size) {
+            if (blockIndices[slot] == blockIndex) {
+                blockLastUsed[slot] = ++blockReads
+                return blockRows[slot]
+            }
+        }
+        return null
+    }
+
+    private fun cacheBlock(blockIndex: Int, rows: Array<Any?>) {
+        var slot = 0
+        for (i in 1 until blockIndices.size) {
+            if (blockLastUsed[i] < blockLastUsed[slot]) {
+                slot = i
+            }
+        }
+        blockIndices[slot] = blockIndex
+        blockRows[slot] = rows
+        blockLastUsed[slot] = ++blockReads
+    }
+
+    private fun evictBlocks() {
+        if (blockSize == 0) {
+            return
+        }
+        synchronized(this) {
+            blockIndices.fill(-1)
+            blockRows.fill(null)
+            blockLastUsed.fill(0)
+        }
+    }
+
+    private fun readBlock(blockIndex: Int): Array<Any?> {
+        val start = blockIndex * blockSize
+        val block = arrayOfNulls<Any>(Math.min(blockSize, size() - start))
+        for (i in 0 until block.size) {
+            // Each row is read on its own, so that rows read by other threads meanwhile only wait for one row.
+            synchronized(cursorLock) {
+                // Continue from the previous row when reading sequentially, even across blocks, unless a row read in
+                // between moved the cursor.
+                if (cursor.position == start + i - 1) {
+                    cursor.moveToNext()
+                } else {
+                    cursor.moveToPosition(start + i)
+                }
+                block[i] = map()
+            }
+        }
+        return block
+    }
+
+    private fun map(): T {
         try {
             return mapper.apply(cursor)
         } catch (e: Exception) {
@@ -42,6 +167,7 @@ class CursorSeekable<T>(
     override fun dispose() {
         if (disposed.compareAndSet(false, true)) {
             cursor.close()
+            evictBlocks()
         }
     }
 
@@ -52,4 +178,8 @@ class CursorSeekable<T>(
     override fun iterator(): Iterator<T> {
         return SeekableIterator(this)
     }
+
+    companion object {
+        const val DEFAULT_MAX_CACHED_BLOCKS = 8
+    }
 }
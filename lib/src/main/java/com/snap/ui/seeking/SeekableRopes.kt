@@ -0,0 +1,125 @@
+package com.snap.ui.seeking
+
+/**
+ * Builds flat compositions of Seekables for [Seekables.concat] and [Seekables.splice].
+ *
+ * Nested concatenations are merged into a single [ConcatSeekable] node, and splices are expressed as
+ * concatenations of [SliceSeekable]s, so repeatedly appending or splicing does not grow a chain of
+ * wrappers that every [Seekable.get] has to recurse through. Nodes hold at most [MAX_CHILDREN] children;
+ * once a composition becomes deeper than its number of leaves requires, it is rebuilt as a balanced tree.
+ * Random access therefore stays O(log n) however the composition was assembled.
+ */
+internal object SeekableRopes {
+
+    const val MAX_CHILDREN = 32
+
+    // Extra levels, beyond a perfectly balanced tree, that a composition may grow before it is rebuilt.
+    private const val MAX_DEPTH_SLACK = 2
+
+    fun <T> concat(seekables: List<Seekable<T>>): Seekable<T> {
+        val parts = ArrayList<Seekable<T>>(seekables.size)
+        for (seekable in seekables) {
+            addParts(parts, seekable)
+        }
+        return build(parts)
+    }
+
+    /**
+     * Returns the items of [source] from [from] (inclusive) to [to] (exclusive),
+     * where `0 <= from <= to <= source.size()`.
+     */
+    fun <T> slice(source: Seekable<T>, from: Int, to: Int): Seekable<T> {
+        if (from >= to) {
+            return Seekables.empty()
+        }
+        if (from == 0 && to == source.size()) {
+            return source
+        }
+        @Suppress("UNCHECKED_CAST")
+        return when (source) {
+            is SliceSeekable<*> -> (source as SliceSeekable<T>).slice(from, to)
+            is ConcatSeekable<*> -> sliceChildren(source as ConcatSeekable<T>, from, to)
+            else -> SliceSeekable(source, from, to)
+        }
+    }
+
+    private fun <T> sliceChildren(source: ConcatSeekable<T>, from: Int, to: Int): Seekable<T> {
+        val first = source.indexOfChild(from)
+        val last = source.indexOfChild(to - 1)
+        val parts = ArrayList<Seekable<T>>(last - first + 1)
+        for (i in first..last) {
+            val child = source.children[i]
+            val offset = source.childOffset(i)
+            val start = Math.max(from - offset, 0)
+            val end = Math.min(to - offset, child.size())
+            addParts(parts, slice(child, start, end))
+        }
+        return build(parts)
+    }
+
+    /**
+     * Adds [seekable] to [parts], replacing a [ConcatSeekable] with its children and dropping empty Seekables.
+     */
+    private fun <T> addParts(parts: MutableList<Seekable<T>>, seekable: Seekable<T>) {
+        if (seekable.size() == 0) {
+            return
+        }
+        if (seekable is ConcatSeekable<*>) {
+            @Suppress("UNCHECKED_CAST")
+            for (child in (seekable as ConcatSeekable<T>).children) {
+                if (child.size() > 0) {
+                    parts.add(child)
+                }
+            }
+        } else {
+            parts.add(seekable)
+        }
+    }
+
+    private fun <T> build(parts: List<Seekable<T>>): Seekable<T> {
+        if (parts.isEmpty()) {
+            return Seekables.empty()
+        }
+        val node = group(parts)
+        if (node is ConcatSeekable<*> && isUnbalanced(node)) {
+            val leaves = ArrayList<Seekable<T>>(node.leafCount)
+            collectLeaves(node, leaves)
+            return group(leaves)
+        }
+        return node
+    }
+
+    /**
+     * Groups [parts] into nodes of at most [MAX_CHILDREN] children, adding levels until a single node remains.
+     */
+    private fun <T> group(parts: List<Seekable<T>>): Seekable<T> {
+        var level = parts
+        while (level.size > MAX_CHILDREN) {
+            level = level.chunked(MAX_CHILDREN) { chunk ->
+                if (chunk.size == 1) chunk[0] else ConcatSeekable(chunk)
+            }
+        }
+        return if (level.size == 1) level[0] else ConcatSeekable(level)
+    }
+
+    private fun isUnbalanced(node: ConcatSeekable<*>): Boolean {
+        var balancedDepth = 1
+        var capacity = MAX_CHILDREN.toLong()
+        while (capacity < node.leafCount) {
+            capacity *= MAX_CHILDREN
+            balancedDepth++
+        }
+        return node.depth > balancedDepth + MAX_DEPTH_SLACK
+    }
+
+    private fun <T> collectLeaves(seekable: Seekable<T>, leaves: MutableList<Seekable<T>>) {
+        if (seekable is ConcatSeekable<*>) {
+            @Suppress("UNCHECKED_CAST")
+            for (child in (seekable as ConcatSeekable<T>).children) {
+                collectLeaves(child, leaves)
+            }
+        } else if (seekable.size() > 0) {
+            leaves.add(seekable)
+        }
+    }
+}
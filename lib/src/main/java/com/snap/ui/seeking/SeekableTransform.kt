@@ -20,6 +20,13 @@ class SeekableTransform<S, T> internal constructor(
         return mapping.invoke(item, position)
     }
 
+    /**
+     * Returns a transform of the same source that applies [next] after this transform's mapping.
+     */
+    internal fun <R> andThen(next: (t: T, position: Int) -> R): SeekableTransform<S, R> {
+        return SeekableTransform(source) { s, position -> next(mapping.invoke(s, position), position) }
+    }
+
     override fun iterator(): Iterator<T> {
         return SeekableIterator(this)
     }
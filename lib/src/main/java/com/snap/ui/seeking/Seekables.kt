@@ -30,10 +30,14 @@ object Seekables {
     }
 
     /**
-     * Creates a Seekable reversing another Seekable.
+     * Creates a Seekable reversing another Seekable. Reversing a reversed Seekable returns the original.
      */
     @JvmStatic
     fun <T> reverse(source: Seekable<T>): Seekable<T> {
+        if (source is ReversingSeekable<*>) {
+            @Suppress("UNCHECKED_CAST")
+            return (source as ReversingSeekable<T>).source
+        }
         return ReversingSeekable(source)
     }
 
@@ -45,28 +49,52 @@ object Seekables {
         return ListSeekable(listOf(item))
     }
 
+    /**
+     * Returns a Seekable that maps each item of another Seekable. Mapping an already mapped
+     * Seekable composes the two mappings instead of nesting them.
+     */
     @JvmStatic
     fun <S, T> map(seekable: Seekable<S>, mapping: (s: S, position: Int) -> T): Seekable<T> {
+        if (seekable is SeekableTransform<*, *>) {
+            @Suppress("UNCHECKED_CAST")
+            return (seekable as SeekableTransform<*, S>).andThen(mapping)
+        }
         return SeekableTransform(seekable, mapping)
     }
 
+    /**
+     * Returns a Seekable of `head` followed by `tail`. Nested concatenations are flattened
+     * and kept balanced, so repeated appends don't slow down random access.
+     */
     @JvmStatic
     fun <T> concat(head: Seekable<T>, tail: Seekable<T>): Seekable<T> {
-        return AppendedSeekable(head, tail)
+        return SeekableRopes.concat(listOf(head, tail))
     }
 
+    /**
+     * Returns a Seekable of the given Seekables in order. Nested concatenations are flattened
+     * and kept balanced, so repeated appends don't slow down random access.
+     */
     @JvmStatic
     fun <T> concat(seekables: List<Seekable<T>>): Seekable<T> {
-        return ConcatSeekable(seekables)
+        return SeekableRopes.concat(seekables)
     }
 
     /**
      * Returns a [Seekable] that splices another Seekable at the given position.
      * If `spliceAt` is beyond the length of `content`, then `splice`
      * is appended to the end of `content`.
+     *
+     * The result is flattened like [concat], so repeated splices don't slow down random access.
      */
     @JvmStatic
     fun <T> splice(content: Seekable<T>, splice: Seekable<T>, splicePosition: Int): Seekable<T> {
-        return SplicingSeekable(content, splice, splicePosition)
+        val contentSize = content.size()
+        val position = Math.max(0, Math.min(splicePosition, contentSize))
+        return SeekableRopes.concat(listOf(
+                SeekableRopes.slice(content, 0, position),
+                splice,
+                SeekableRopes.slice(content, position, contentSize)
+        ))
     }
 }
@@ -0,0 +1,28 @@
+package com.snap.ui.seeking
+
+/**
+ * A Seekable view of the items of another Seekable from position [from] (inclusive)
+ * to [to] (exclusive).
+ */
+internal class SliceSeekable<T>(
+    private val source: Seekable<T>,
+    private val from: Int,
+    private val to: Int
+) : Seekable<T> {
+
+    override fun size(): Int = to - from
+
+    override fun get(position: Int): T {
+        if (position < 0 || position >= size()) {
+            throw IndexOutOfBoundsException()
+        }
+        return source[from + position]
+    }
+
+    override fun iterator(): Iterator<T> = SeekableIterator(this)
+
+    /**
+     * Slices the underlying Seekable directly, rather than stacking another slice on top of this one.
+     */
+    fun slice(start: Int, end: Int): Seekable<T> = SeekableRopes.slice(source, from + start, from + end)
+}
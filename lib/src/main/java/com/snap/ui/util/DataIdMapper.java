@@ -1,5 +1,9 @@
 package com.snap.ui.util;
 
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -8,28 +12,260 @@ import java.util.concurrent.atomic.AtomicLong;
  * data sources only provide unique String identifier. Since Hashcode
  * is not guaranteed unique, track a mapping from the <code>String</code> identifier
  * to a unique <code>long</code>.
+ * <p>
+ * By default ids are handed out sequentially, and the ids of all keys are kept and looked up without locking.
+ * <p>
+ * A mapper created with {@link #withDerivedIds()} instead gives a key its {@link StableIds#of derived id}, so it is
+ * the same across mappers and process restarts; the rare key whose derived id is taken by another key gets an id
+ * from {@link StableIds#next()}, which never equals a derived one.
+ * <p>
+ * A mapper created with a {@code maxSize} derives ids too, and keeps the ids of at most that many keys, dropping the
+ * keys that went unused the longest. A dropped key gets its derived id again when it comes back, so only a key whose
+ * derived id was taken may get a new id. Lookups only lock the segment of the table holding the key.
+ * <p>
+ * A mapper may be shared by sections by giving each its own namespace.
  */
-
 public class DataIdMapper {
 
+    // Segments of a bounded mapper hold at least this many keys per generation, so that small mappers still drop
+    // the least recently used keys.
+    private static final int MIN_SEGMENT_GENERATION_SIZE = 64;
+    private static final int MAX_SEGMENTS = 16;
+
+    private final @Nullable AtomicLong mIdGenerator;
+
+    // Unbounded mappers: the ids of each namespace, and the derived ids in use.
+    private final ConcurrentHashMap<String, Long> mDefaultNamespace = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<String, Long>> mNamespaces = new ConcurrentHashMap<>();
+    private final Set<Long> mTakenHashes = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
+    // Bounded mappers, chosen by bits of the derived id above the table slot bits.
+    private final @Nullable Segment[] mSegments;
+
     public DataIdMapper() {
-        
+        this(0L);
     }
 
+    /**
+     * Hands out sequential ids after {@code seedValue}.
+     */
     public DataIdMapper(Long seedValue) {
-        mIdGenerator.set(seedValue);
+        this(new AtomicLong(seedValue), null);
     }
 
-    private final ConcurrentHashMap<String, Long> mStableIds = new ConcurrentHashMap<>();
-    private final AtomicLong mIdGenerator = new AtomicLong();
+    /**
+     * Derives ids from the keys, and keeps the ids of at most {@code maxSize} keys.
+     */
+    public DataIdMapper(int maxSize) {
+        this(null, createSegments(maxSize));
+    }
+
+    private DataIdMapper(@Nullable AtomicLong idGenerator, @Nullable Segment[] segments) {
+        mIdGenerator = idGenerator;
+        mSegments = segments;
+    }
+
+    /**
+     * Returns an unbounded mapper that derives ids from the keys.
+     */
+    public static DataIdMapper withDerivedIds() {
+        return new DataIdMapper(null, null);
+    }
+
+    private static Segment[] createSegments(int maxSize) {
+        if (maxSize < 2) {
+            throw new IllegalArgumentException("maxSize must be at least 2, was " + maxSize);
+        }
+        int generationSize = maxSize / 2;
+        int segmentCount = Integer.highestOneBit(Math.max(1, generationSize / MIN_SEGMENT_GENERATION_SIZE));
+        segmentCount = Math.min(segmentCount, MAX_SEGMENTS);
+        Segment[] segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // Spread the remainder, so the segments add up to the generation size.
+            int size = generationSize / segmentCount + (i < generationSize % segmentCount ? 1 : 0);
+            segments[i] = new Segment(size);
+        }
+        return segments;
+    }
 
     public long getStableId(String key) {
-        Long id = mStableIds.get(key);
+        return getStableId(0, key);
+    }
+
+    /**
+     * Returns the id of {@code key} within {@code namespace}. The same key in different namespaces gets different
+     * ids.
+     */
+    public long getStableId(long namespace, String key) {
+        if (mSegments != null) {
+            long hash = StableIds.of(namespace, key);
+            // The segment count is a power of two, and the table slots use the low bits. Bits 32 to 35 are below the
+            // bit that every derived id has set.
+            return mSegments[(int) (hash >>> 32) & (mSegments.length - 1)].getStableId(hash, namespace, key);
+        }
+
+        ConcurrentHashMap<String, Long> ids = namespace == 0 ? mDefaultNamespace : namespaceIds(namespace);
+        Long id = ids.get(key);
         if (id == null) {
-            long generatedId = mIdGenerator.incrementAndGet();
-            Long existingId = mStableIds.putIfAbsent(key, generatedId);
+            long generatedId;
+            if (mIdGenerator != null) {
+                generatedId = mIdGenerator.incrementAndGet();
+            } else {
+                long hash = StableIds.of(namespace, key);
+                generatedId = hash;
+                if (!mTakenHashes.add(hash)) {
+                    generatedId = StableIds.next();
+                }
+            }
+            Long existingId = ids.putIfAbsent(key, generatedId);
             id = (existingId == null) ? generatedId : existingId;
         }
         return id;
     }
-}
\ No newline at end of file
+
+    /**
+     * Number of keys whose id is kept.
+     */
+    public int size() {
+        int size = 0;
+        if (mSegments != null) {
+            for (Segment segment : mSegments) {
+                size += segment.size();
+            }
+            return size;
+        }
+        size = mDefaultNamespace.size();
+        for (ConcurrentHashMap<String, Long> ids : mNamespaces.values()) {
+            size += ids.size();
+        }
+        return size;
+    }
+
+    private ConcurrentHashMap<String, Long> namespaceIds(long namespace) {
+        ConcurrentHashMap<String, Long> ids = mNamespaces.get(namespace);
+        if (ids == null) {
+            ConcurrentHashMap<String, Long> newIds = new ConcurrentHashMap<>();
+            ids = mNamespaces.putIfAbsent(namespace, newIds);
+            if (ids == null) {
+                ids = newIds;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * The keys of a bounded mapper whose hashes share the bits that pick the segment. Keys with the same hash are
+     * always in the same segment, so a segment can tell whether a hash is taken.
+     */
+    private static final class Segment {
+        private final int mGenerationSize;
+
+        // Keys are looked up in the current generation, then in the previous one, from which they are moved back
+        // into the current one. Once the current generation fills up, it becomes the previous one, dropping the keys
+        // that were not used since the last time.
+        private Generation mCurrent;
+        private Generation mPrevious;
+
+        Segment(int generationSize) {
+            mGenerationSize = generationSize;
+            mCurrent = new Generation(generationSize);
+            mPrevious = new Generation(generationSize);
+        }
+
+        synchronized long getStableId(long hash, long namespace, String key) {
+            int index = mCurrent.indexOf(hash, namespace, key);
+            if (index >= 0) {
+                return mCurrent.mIds[index];
+            }
+
+            long id;
+            index = mPrevious.indexOf(hash, namespace, key);
+            if (index >= 0) {
+                id = mPrevious.mIds[index];
+            } else if (mCurrent.containsHash(hash) || mPrevious.containsHash(hash)) {
+                id = StableIds.next();
+            } else {
+                id = hash;
+            }
+
+            if (mCurrent.mSize == mGenerationSize) {
+                Generation recycled = mPrevious;
+                recycled.clear();
+                mPrevious = mCurrent;
+                mCurrent = recycled;
+            }
+            mCurrent.put(hash, namespace, key, id);
+            return id;
+        }
+
+        synchronized int size() {
+            int size = mCurrent.mSize;
+            for (int i = 0; i < mPrevious.mKeys.length; i++) {
+                String key = mPrevious.mKeys[i];
+                if (key != null && mCurrent.indexOf(mPrevious.mHashes[i], mPrevious.mNamespaces[i], key) < 0) {
+                    size++;
+                }
+            }
+            return size;
+        }
+    }
+
+    /**
+     * An open addressing table keyed by the hash of the namespace and key.
+     */
+    private static final class Generation {
+        final long[] mHashes;
+        final long[] mNamespaces;
+        final String[] mKeys;
+        final long[] mIds;
+        final int mMask;
+        int mSize;
+
+        Generation(int maxSize) {
+            // At most half full, so that probes stay short.
+            int capacity = Integer.highestOneBit(maxSize * 2 - 1) * 2;
+            mHashes = new long[capacity];
+            mNamespaces = new long[capacity];
+            mKeys = new String[capacity];
+            mIds = new long[capacity];
+            mMask = capacity - 1;
+        }
+
+        int indexOf(long hash, long namespace, String key) {
+            for (int i = (int) hash & mMask; mKeys[i] != null; i = (i + 1) & mMask) {
+                if (mHashes[i] == hash && mNamespaces[i] == namespace && mKeys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        boolean containsHash(long hash) {
+            for (int i = (int) hash & mMask; mKeys[i] != null; i = (i + 1) & mMask) {
+                if (mHashes[i] == hash) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void put(long hash, long namespace, String key, long id) {
+            int i = (int) hash & mMask;
+            while (mKeys[i] != null) {
+                i = (i + 1) & mMask;
+            }
+            mHashes[i] = hash;
+            mNamespaces[i] = namespace;
+            mKeys[i] = key;
+            mIds[i] = id;
+            mSize++;
+        }
+
+        void clear() {
+            for (int i = 0; i < mKeys.length; i++) {
+                mKeys[i] = null;
+            }
+            mSize = 0;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.snap.ui.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stable ids for view models. Ids derived from a key with {@link #of} are the same every time a model is built for
+ * that key, so rebuilt models keep matching their previous versions. {@link #next()} hands out unique ids for models
+ * without a key.
+ *
+ * Derived ids are {@value #ID_BITS}-bit hashes, so that section adapters pack them into item ids along with the
+ * section and view type. Their top bit is always set, and ids from {@link #next()} never reach it, so a derived id
+ * never equals a handed out one. Distinct keys may still collide, with a probability of about n^2 / 2^40 among n
+ * keys; use {@link DataIdMapper#withDerivedIds()} where ids must be unique.
+ */
+public final class StableIds {
+
+    public static final int ID_BITS = 40;
+
+    private static final long DERIVED_ID_BIT = 1L << (ID_BITS - 1);
+    private static final long DERIVED_ID_MASK = DERIVED_ID_BIT - 1;
+
+    // Ids handed out per thread by next() before taking another block from the shared counter.
+    private static final int BLOCK_SIZE = 1024;
+
+    private static final AtomicLong sNextBlock = new AtomicLong();
+
+    private static final ThreadLocal<long[]> sThreadBlock = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            // The next id of this thread's block, and the end of the block.
+            return new long[2];
+        }
+    };
+
+    private StableIds() {}
+
+    /**
+     * Returns a unique id. Each thread takes ids from its own block, so threads building models in parallel don't
+     * contend on a shared counter. Ids start at 1, stay below the ids derived from keys, and are only unique within
+     * the process.
+     */
+    public static long next() {
+        long[] block = sThreadBlock.get();
+        if (block[0] == block[1]) {
+            long start = sNextBlock.getAndIncrement() * BLOCK_SIZE + 1;
+            block[0] = start;
+            block[1] = start + BLOCK_SIZE;
+        }
+        return block[0]++;
+    }
+
+    public static long of(CharSequence key) {
+        return of(0, key);
+    }
+
+    /**
+     * Derives an id from {@code key} within {@code namespace}, for instance a section, so that sections with
+     * overlapping keys get different ids.
+     */
+    public static long of(long namespace, CharSequence key) {
+        // FNV-1a over the UTF-16 chars, finished with a mix so that similar keys spread over all bits.
+        long hash = 0xcbf29ce484222325L ^ mix(namespace);
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return derive(hash);
+    }
+
+    public static long of(long namespace, long key) {
+        return derive(mix(namespace) + key);
+    }
+
+    /**
+     * Folds the mixed hash into the bits below the derived id bit.
+     */
+    private static long derive(long hash) {
+        long mixed = mix(hash);
+        return ((mixed ^ (mixed >>> ID_BITS)) & DERIVED_ID_MASK) | DERIVED_ID_BIT;
+    }
+
+    /**
+     * The finalizer of SplitMix64.
+     */
+    static long mix(long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,158 @@
+package com.snap.ui.recycling
+
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import com.nhaarman.mockito_kotlin.mock
+import com.snap.ui.event.EventDispatcher
+import com.snap.ui.recycling.adapter.BindingViewModelAdapter
+import com.snap.ui.recycling.factory.ViewFactory
+import com.snap.ui.recycling.viewmodel.AdapterViewModel
+import com.snap.ui.recycling.viewmodel.HorizontalScrollerModel
+import com.snap.ui.seeking.Seekable
+import org.junit.Assert
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+
+@RunWith(RobolectricTestRunner::class)
+class HorizontalRecyclerViewBindingTest {
+
+    private val viewFactory = ViewFactory(ItemViewType::class.java)
+    private val eventDispatcher = mock<EventDispatcher>()
+    private val recyclerView = RecyclerView(RuntimeEnvironment.application).apply {
+        layoutParams = ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_SIZE)
+    }
+    private val binding = CountingBinding().apply { create(recyclerView) }
+    private val items = (0 until 20).map { AdapterViewModel(ItemViewType.ITEM, it.toLong()) }
+
+    @Test
+    fun bind_sameModels_skipsAdapterUpdate() {
+        val first = scroller(1, items)
+        binding.bind(first, null, eventDispatcher)
+        binding.bind(scroller(1, items.toList()), first, eventDispatcher)
+
+        Assert.assertEquals(1, binding.updates)
+    }
+
+    @Test
+    fun bind_sameFingerprints_skipsListComparison() {
+        FingerprintedItem.comparisons = 0
+        val first = scroller(1, (0 until 20).map { FingerprintedItem(it.toLong()) })
+        binding.bind(first, null, eventDispatcher)
+        val second = scroller(1, (0 until 20).map { FingerprintedItem(it.toLong()) })
+        binding.bind(second, first, eventDispatcher)
+
+        Assert.assertEquals(1, binding.updates)
+        Assert.assertEquals(0, FingerprintedItem.comparisons)
+    }
+
+    @Test
+    fun bind_modelsChangedInPlace_updatesAdapter() {
+        val models = items.toMutableList()
+        val first = scroller(1, models)
+        binding.bind(first, null, eventDispatcher)
+
+        models.removeAt(0)
+        binding.bind(scroller(1, models), first, eventDispatcher)
+
+        Assert.assertEquals(2, binding.updates)
+        Assert.assertEquals(19, recyclerView.adapter!!.itemCount)
+    }
+
+    @Test
+    fun bind_scrollerShownAgain_restoresScrollState() {
+        val first = scroller(1, items)
+        binding.bind(first, null, eventDispatcher)
+        layout()
+        layoutManager().scrollToPositionWithOffset(10, 0)
+        layout()
+        Assert.assertEquals(10, firstVisiblePosition())
+
+        val second = scroller(2, items)
+        binding.bind(second, first, eventDispatcher)
+        layout()
+        Assert.assertEquals(0, firstVisiblePosition())
+
+        binding.bind(scroller(1, items), second, eventDispatcher)
+        layout()
+        Assert.assertEquals(10, firstVisiblePosition())
+    }
+
+    @Test
+    fun bind_initialPrefetchItemCount_followsEstimateThenItemsSeen() {
+        val first = scroller(1, items)
+        binding.bind(first, null, eventDispatcher)
+        // Neither an estimate nor a scroller laid out yet.
+        Assert.assertEquals(2, layoutManager().initialPrefetchItemCount)
+        layout()
+
+        val second = scroller(2, items)
+        binding.bind(second, first, eventDispatcher)
+        Assert.assertEquals(VISIBLE_ITEMS, layoutManager().initialPrefetchItemCount)
+
+        binding.bind(scroller(3, items, visibleItemEstimate = 5), second, eventDispatcher)
+        Assert.assertEquals(5, layoutManager().initialPrefetchItemCount)
+    }
+
+    private fun scroller(id: Long, models: List<AdapterViewModel>, visibleItemEstimate: Int = 0) =
+            HorizontalScrollerModel(
+                    ItemViewType.ITEM, viewFactory, eventDispatcher, models, id, ITEM_SIZE, 0, 0, visibleItemEstimate)
+
+    private fun layout() {
+        recyclerView.measure(
+                View.MeasureSpec.makeMeasureSpec(ITEM_SIZE * VISIBLE_ITEMS, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(ITEM_SIZE, View.MeasureSpec.EXACTLY))
+        recyclerView.layout(0, 0, ITEM_SIZE * VISIBLE_ITEMS, ITEM_SIZE)
+    }
+
+    private fun layoutManager() = recyclerView.layoutManager as LinearLayoutManager
+
+    private fun firstVisiblePosition() = layoutManager().findFirstVisibleItemPosition()
+
+    class CountingBinding : HorizontalRecyclerViewBinding() {
+        var updates = 0
+
+        override fun createAdapter(model: HorizontalScrollerModel<*>): BindingViewModelAdapter {
+            return object : BindingViewModelAdapter(model.viewFactory, model.eventDispatcher) {
+                override fun updateViewModels(views: Seekable<out AdapterViewModel>) {
+                    updates++
+                    super.updateViewModels(views)
+                }
+            }
+        }
+    }
+
+    class FingerprintedItem(id: Long) : AdapterViewModel(ItemViewType.ITEM, id) {
+        override fun computeContentFingerprint() = combineFingerprint(NO_FINGERPRINT, id)
+
+        override fun equals(other: Any?): Boolean {
+            comparisons++
+            return super.equals(other)
+        }
+
+        override fun hashCode() = super.hashCode()
+
+        companion object {
+            var comparisons = 0
+        }
+    }
+
+    enum class ItemViewType(override val layoutId: Int) : ViewCreatingBindingAdapterViewType {
+        ITEM(ViewFactory.DEFAULT_CONTAINER);
+
+        override val viewBindingClass: Class<out ViewBinding<*>>? = null
+
+        override fun createView(parent: ViewGroup, inflater: LayoutInflater): View {
+            return View(parent.context).apply { layoutParams = RecyclerView.LayoutParams(ITEM_SIZE, ITEM_SIZE) }
+        }
+    }
+
+    companion object {
+        const val ITEM_SIZE = 100
+        const val VISIBLE_ITEMS = 3
+    }
+}
@@ -0,0 +1,79 @@
+package com.snap.ui.recycling.adapter
+
+import android.view.Choreographer
+import org.junit.Assert
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class BindSchedulerTest {
+
+    private val subject = BindScheduler(Choreographer.getInstance())
+    private val bound = mutableListOf<String>()
+
+    @Test
+    fun runFrame_bindsVisibleRequestsFirst() {
+        subject.schedule(TestRequest("offscreen1", visible = false))
+        subject.schedule(TestRequest("visible", visible = true))
+        subject.schedule(TestRequest("offscreen2", visible = false))
+
+        subject.runFrame(System.nanoTime())
+
+        Assert.assertEquals(listOf("visible", "offscreen1", "offscreen2"), bound)
+        Assert.assertEquals(0, subject.pendingRequestCount)
+        Assert.assertEquals(3L, subject.totalBinds)
+    }
+
+    @Test
+    fun runFrame_skipsCancelledRequests() {
+        val cancelled = TestRequest("cancelled", visible = true)
+        subject.schedule(cancelled)
+        subject.schedule(TestRequest("kept", visible = true))
+        cancelled.cancel()
+
+        subject.runFrame(System.nanoTime())
+
+        Assert.assertEquals(listOf("kept"), bound)
+        Assert.assertEquals(0, subject.pendingRequestCount)
+    }
+
+    @Test
+    fun runFrame_defersRequestsPastTheBudget() {
+        var frames = 0
+        subject.setFrameMetricsListener(object : BindScheduler.FrameMetricsListener {
+            override fun onFrameBound(bindsDone: Int, bindsDeferred: Int, overrunNanos: Long) {
+                frames++
+                Assert.assertEquals(1, bindsDone)
+                Assert.assertEquals(2, bindsDeferred)
+                Assert.assertTrue(overrunNanos > 0)
+            }
+        })
+        for (i in 0 until 3) {
+            subject.schedule(TestRequest("request$i", visible = true))
+        }
+
+        // A frame that started long ago has no budget left, but still binds one request.
+        subject.runFrame(System.nanoTime() - subject.frameIntervalNanos * 2)
+
+        Assert.assertEquals(listOf("request0"), bound)
+        Assert.assertEquals(2, subject.pendingRequestCount)
+        Assert.assertEquals(1, frames)
+        Assert.assertEquals(1L, subject.totalOverrunFrames)
+    }
+
+    @Test
+    fun setRefreshRate_setsFrameInterval() {
+        subject.setRefreshRate(120f)
+
+        Assert.assertEquals(1_000_000_000L / 120, subject.frameIntervalNanos)
+    }
+
+    private inner class TestRequest(val name: String, val visible: Boolean) : BindScheduler.BindRequest() {
+        override fun isVisible() = visible
+
+        override fun bind() {
+            bound.add(name)
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.snap.ui.recycling.adapter
+
+import android.view.View
+import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.doReturn
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.spy
+import com.snap.ui.event.EventDispatcher
+import com.snap.ui.recycling.BindingAdapterViewType
+import com.snap.ui.recycling.PrecomputingViewBinding
+import com.snap.ui.recycling.ViewBinding
+import com.snap.ui.recycling.factory.BindingViewHolder
+import com.snap.ui.recycling.factory.ViewFactory
+import com.snap.ui.recycling.viewmodel.AdapterViewModel
+import org.junit.Assert
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class BindingPrecomputerTest {
+
+    private val subject = BindingPrecomputer(16)
+    private val viewFactory = spy(ViewFactory(setOf(TestViewType::class.java))).apply {
+        doReturn(mock<View>()).`when`(this).getOrCreateView(any(), any(), any())
+    }
+    private val holder = viewFactory.createViewHolder(
+            mock(), viewFactory.getViewTypeId(TestViewType.TITLE), mock()) as BindingViewHolder<TitleModel, *>
+    private val binding = holder.binding as TitleBinding
+
+    @Before
+    fun setup() {
+        precomputeCount = 0
+    }
+
+    @Test
+    fun prepare_handsCachedResultToBinding() {
+        val model = TitleModel("a")
+        subject.precompute(model, 1)
+
+        subject.prepare(holder, model, 1)
+        holder.bind(model, mock<EventDispatcher>(), null)
+
+        Assert.assertEquals("A", binding.boundTitle)
+        Assert.assertEquals(1, precomputeCount)
+    }
+
+    @Test
+    fun precompute_reusesResultForSameContents() {
+        subject.precompute(TitleModel("a"), 1)
+        subject.precompute(TitleModel("a"), 1)
+        subject.precompute(TitleModel("b"), 1)
+
+        Assert.assertEquals(2, precomputeCount)
+    }
+
+    @Test
+    fun prepare_withChangedModel_precomputesWhileBinding() {
+        subject.precompute(TitleModel("a"), 1)
+        val model = TitleModel("b")
+
+        subject.prepare(holder, model, 1)
+        holder.bind(model, mock<EventDispatcher>(), null)
+
+        Assert.assertEquals("B", binding.boundTitle)
+        Assert.assertEquals(2, precomputeCount)
+    }
+
+    class TitleModel(val title: String) : AdapterViewModel(TestViewType.TITLE, 1) {
+        override fun areContentsTheSame(model: AdapterViewModel) = title == (model as TitleModel).title
+    }
+
+    class TitleBinding : PrecomputingViewBinding<TitleModel, String>() {
+        var boundTitle: String? = null
+
+        override fun onCreate(itemView: View) {}
+
+        override fun precompute(model: TitleModel): String {
+            precomputeCount++
+            return model.title.toUpperCase()
+        }
+
+        override fun onBind(model: TitleModel, previousModel: TitleModel?, precomputed: String) {
+            boundTitle = precomputed
+        }
+    }
+
+    enum class TestViewType(override val layoutId: Int) : BindingAdapterViewType {
+        TITLE(ViewFactory.DEFAULT_CONTAINER);
+
+        override val viewBindingClass: Class<out ViewBinding<*>> = TitleBinding::class.java
+    }
+
+    companion object {
+        var precomputeCount = 0
+    }
+}
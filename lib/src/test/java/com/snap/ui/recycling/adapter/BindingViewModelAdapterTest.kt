@@ -0,0 +1,128 @@
+package com.snap.ui.recycling.adapter
+
+import android.view.Choreographer
+import android.view.View
+import android.view.ViewGroup
+import androidx.recyclerview.widget.RecyclerView
+import com.nhaarman.mockito_kotlin.mock
+import com.snap.ui.recycling.AdapterViewType
+import com.snap.ui.recycling.factory.ViewFactory
+import com.snap.ui.recycling.factory.ViewModelViewHolder
+import com.snap.ui.recycling.viewmodel.AdapterViewModel
+import com.snap.ui.seeking.Seekables
+import org.junit.Assert
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+
+@RunWith(RobolectricTestRunner::class)
+class BindingViewModelAdapterTest {
+
+    private val subject = BindingViewModelAdapter(mock<ViewFactory>(), mock(), false)
+    private val events = mutableListOf<String>()
+
+    @Before
+    fun setup() {
+        subject.registerAdapterDataObserver(object : RecyclerView.AdapterDataObserver() {
+            override fun onChanged() {
+                events.add("reset")
+            }
+
+            override fun onItemRangeChanged(positionStart: Int, itemCount: Int, payload: Any?) {
+                events.add("change $positionStart $itemCount")
+            }
+
+            override fun onItemRangeInserted(positionStart: Int, itemCount: Int) {
+                events.add("insert $positionStart $itemCount")
+            }
+
+            override fun onItemRangeRemoved(positionStart: Int, itemCount: Int) {
+                events.add("remove $positionStart $itemCount")
+            }
+
+            override fun onItemRangeMoved(fromPosition: Int, toPosition: Int, itemCount: Int) {
+                events.add("move $fromPosition $toPosition")
+            }
+        })
+    }
+
+    @Test
+    fun updateViewModels_coalescesConsecutiveChanges() {
+        update(models(1 to "a", 2 to "b", 3 to "c", 4 to "d"))
+        events.clear()
+
+        update(models(1 to "a", 2 to "x", 3 to "x", 4 to "d"))
+
+        Assert.assertEquals(listOf("change 1 2"), events)
+    }
+
+    @Test
+    fun updateViewModels_insertInMiddle_doesNotChangeLaterItems() {
+        update(models(1 to "a", 2 to "b", 3 to "c"))
+        events.clear()
+
+        update(models(1 to "a", 5 to "e", 2 to "b", 3 to "c"))
+
+        Assert.assertEquals(listOf("insert 1 1"), events)
+    }
+
+    @Test
+    fun updateViewModels_insertAndRemove_matchesById() {
+        update(models(1 to "a", 2 to "b", 3 to "c", 4 to "d"))
+        events.clear()
+
+        update(models(1 to "a", 5 to "e", 3 to "c", 4 to "x"))
+
+        Assert.assertEquals(listOf("remove 1 1", "insert 1 1", "change 3 1"), events)
+    }
+
+    @Test
+    fun updateViewModels_largeReorder_notifiesRangesRatherThanReset() {
+        val models = (0 until 3000L).map { TestModel(it, "a") }
+        update(models)
+        events.clear()
+
+        // Swap the first and last items, which neither linear diff handles.
+        update(listOf(models.last()) + models.subList(1, 2999) + models.first())
+
+        Assert.assertEquals(4, events.size)
+        Assert.assertEquals(setOf("remove 0 1", "insert 0 1", "remove 2999 1", "insert 2999 1"), events.toSet())
+    }
+
+    @Test
+    fun asyncBinding_pendingBindFollowsItsItemAcrossInsert() {
+        val scheduler = BindScheduler(Choreographer.getInstance())
+        val adapter = BindingViewModelAdapter(mock<ViewFactory>(), mock(), true, scheduler)
+        adapter.updateViewModels(Seekables.copyOf(models(1 to "a", 2 to "b", 3 to "c")))
+        val view = View(RuntimeEnvironment.application)
+        view.layoutParams = ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT)
+        val holder = ViewModelViewHolder<AdapterViewModel>(view)
+        adapter.onBindViewHolder(holder, 2)
+        Assert.assertEquals(View.INVISIBLE, view.visibility)
+
+        // Insert before the pending item, then change the item that took over its old position.
+        adapter.updateViewModels(Seekables.copyOf(models(1 to "a", 4 to "d", 2 to "b", 3 to "c")))
+        adapter.updateViewModels(Seekables.copyOf(models(1 to "a", 4 to "d", 2 to "x", 3 to "c")))
+        scheduler.runFrame(System.nanoTime())
+
+        Assert.assertEquals(3L, holder.boundViewModel.id)
+        Assert.assertEquals(View.VISIBLE, view.visibility)
+    }
+
+    private fun update(models: List<TestModel>) {
+        subject.updateViewModels(Seekables.copyOf(models))
+    }
+
+    private fun models(vararg items: Pair<Long, String>) = items.map { TestModel(it.first, it.second) }
+
+    private class TestModel(id: Long, val content: String) : AdapterViewModel(TestViewType.ITEM, id) {
+        override fun areContentsTheSame(model: AdapterViewModel) = content == (model as TestModel).content
+    }
+
+    private enum class TestViewType(override val layoutId: Int) : AdapterViewType {
+        ITEM(ViewFactory.DEFAULT_CONTAINER)
+    }
+}
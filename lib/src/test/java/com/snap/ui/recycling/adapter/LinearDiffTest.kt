@@ -0,0 +1,123 @@
+package com.snap.ui.recycling.adapter
+
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListUpdateCallback
+import org.junit.Assert
+import org.junit.Test
+
+class LinearDiffTest {
+
+    @Test
+    fun diffSingleRun_append() {
+        val updates = diffSingleRun(listOf(item(1), item(2)), listOf(item(1), item(2), item(3), item(4)))
+        Assert.assertEquals(listOf("insert 2 2"), updates)
+    }
+
+    @Test
+    fun diffSingleRun_prependWithChange() {
+        val updates = diffSingleRun(listOf(item(1), item(2)), listOf(item(0), item(1), item(2, "changed")))
+        Assert.assertEquals(listOf("insert 0 1", "change 2 1"), updates)
+    }
+
+    @Test
+    fun diffSingleRun_truncate() {
+        val updates = diffSingleRun(listOf(item(1), item(2), item(3)), listOf(item(1)))
+        Assert.assertEquals(listOf("remove 1 2"), updates)
+    }
+
+    @Test
+    fun diffSingleRun_multipleRuns_fails() {
+        val updates = diffSingleRun(listOf(item(1), item(2), item(3)), listOf(item(0), item(2), item(4)))
+        Assert.assertNull(updates)
+    }
+
+    @Test
+    fun diffStableOrder_insertsAndRemovals() {
+        val old = listOf(item(1), item(2), item(3), item(4), item(5))
+        val new = listOf(item(0), item(1), item(3, "changed"), item(6), item(5), item(7))
+        val updates = diffStableOrder(old, new)!!
+        Assert.assertEquals(listOf("insert 0 1", "remove 2 1", "change 2 1", "remove 3 1", "insert 3 1", "insert 5 1"), updates)
+        Assert.assertEquals(new.map { it.id }, apply(old.map { it.id }, new.map { it.id }, updates))
+    }
+
+    @Test
+    fun diffStableOrder_reordered_fails() {
+        Assert.assertNull(diffStableOrder(listOf(item(1), item(2), item(3)), listOf(item(3), item(2), item(1))))
+    }
+
+    @Test
+    fun diffStableOrder_duplicateIds_fails() {
+        Assert.assertNull(diffStableOrder(listOf(item(1), item(1)), listOf(item(1))))
+    }
+
+    @Test
+    fun longIdSet_addAndContains() {
+        val set = LongIdSet(100)
+        for (i in 0L until 100L) {
+            Assert.assertTrue(set.add(i shl 40))
+        }
+        Assert.assertFalse(set.add(5L shl 40))
+        Assert.assertTrue(set.contains(99L shl 40))
+        Assert.assertFalse(set.contains(100L shl 40))
+    }
+
+    private fun diffSingleRun(old: List<Item>, new: List<Item>): List<String>? {
+        val updates = RecordingCallback()
+        return if (LinearDiff.diffSingleRun(Callback(old, new), updates)) updates.updates else null
+    }
+
+    private fun diffStableOrder(old: List<Item>, new: List<Item>): List<String>? {
+        val updates = RecordingCallback()
+        val callback = Callback(old, new)
+        return if (LinearDiff.diffStableOrder(callback, callback, updates)) updates.updates else null
+    }
+
+    /**
+     * Applies inserts and removes to [old], taking inserted ids from [new] by position.
+     */
+    private fun apply(old: List<Long>, new: List<Long>, updates: List<String>): List<Long> {
+        val list = old.toMutableList()
+        for (update in updates) {
+            val (type, position, count) = update.split(" ")
+            val start = position.toInt()
+            for (i in 0 until count.toInt()) {
+                when (type) {
+                    "insert" -> list.add(start + i, new[start + i])
+                    "remove" -> list.removeAt(start)
+                }
+            }
+        }
+        return list
+    }
+
+    private fun item(id: Long, content: String = "") = Item(id, content)
+
+    private data class Item(val id: Long, val content: String)
+
+    private class Callback(val old: List<Item>, val new: List<Item>) : DiffUtil.Callback(), ItemIds {
+        override fun getOldListSize() = old.size
+        override fun getNewListSize() = new.size
+        override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                old[oldItemPosition].id == new[newItemPosition].id
+        override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                old[oldItemPosition] == new[newItemPosition]
+        override fun oldItemId(oldItemPosition: Int) = old[oldItemPosition].id
+        override fun newItemId(newItemPosition: Int) = new[newItemPosition].id
+    }
+
+    private class RecordingCallback : ListUpdateCallback {
+        val updates = ArrayList<String>()
+        override fun onInserted(position: Int, count: Int) {
+            updates.add("insert $position $count")
+        }
+        override fun onRemoved(position: Int, count: Int) {
+            updates.add("remove $position $count")
+        }
+        override fun onMoved(fromPosition: Int, toPosition: Int) {
+            updates.add("move $fromPosition $toPosition")
+        }
+        override fun onChanged(position: Int, count: Int, payload: Any?) {
+            updates.add("change $position $count")
+        }
+    }
+}
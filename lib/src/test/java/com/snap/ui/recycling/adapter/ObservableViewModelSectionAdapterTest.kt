@@ -1,21 +1,37 @@
 package com.snap.ui.recycling.adapter
 
 import android.view.View
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListUpdateCallback
+import androidx.recyclerview.widget.RecyclerView
 import com.nhaarman.mockito_kotlin.mock
 import com.snap.ui.event.EventDispatcher
+import com.snap.ui.recycling.AdapterViewType
+import com.snap.ui.recycling.BindingAdapterViewType
+import com.snap.ui.recycling.LazySectionChanges
 import com.snap.ui.recycling.ObservableSectionController
+import com.snap.ui.recycling.PrecomputingViewBinding
+import com.snap.ui.recycling.ViewBinding
 import com.snap.ui.recycling.factory.ViewFactory
+import com.snap.ui.recycling.factory.ViewModelViewHolder
 import com.snap.ui.recycling.viewmodel.AdapterViewModel
 import com.snap.ui.seeking.Seekable
+import com.snap.ui.seeking.SeekableIterator
+import com.snap.ui.seeking.Seekables
 import io.reactivex.Observable
+import io.reactivex.Scheduler
 import io.reactivex.disposables.Disposable
 import io.reactivex.disposables.Disposables
 import io.reactivex.schedulers.Schedulers
+import io.reactivex.subjects.BehaviorSubject
+import io.reactivex.subjects.PublishSubject
 import org.assertj.core.api.Assertions.assertThat
 import org.assertj.core.api.ObjectAssert
+import org.junit.Assert
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
 
 @RunWith(RobolectricTestRunner::class)
 class ObservableViewModelSectionAdapterTest {
@@ -92,6 +108,272 @@ class ObservableViewModelSectionAdapterTest {
             .isDisposed()
     }
 
+    @Test
+    fun getItemId_manyWideModelIds_keepsIdsAcrossGenerations() {
+        val section = EmittingSectionController()
+        val adapter = subscribedAdapter(section)
+        val models = (0 until 5000).map { TestModel((1L shl 40) + it, "") }
+
+        section.emit(models)
+        val ids = itemIds(adapter)
+        section.emit(models.drop(1) + TestModel((1L shl 40) + 5000, ""))
+
+        Assert.assertEquals(ids.drop(1), itemIds(adapter).take(4999))
+        Assert.assertEquals(5000, itemIds(adapter).toSet().size)
+    }
+
+    @Test
+    fun precompute_boundsEachGenerationAroundLastBoundPosition() {
+        val section = EmittingSectionController()
+        val adapter = subscribedAdapter(section)
+        precomputedIds.clear()
+
+        section.emit((0 until 2000).map { PrecomputedModel(it.toLong(), "a") })
+
+        Assert.assertTrue(precomputedIds.size < 2000)
+        Assert.assertTrue(0L in precomputedIds)
+
+        adapter.onBindViewHolder(ViewModelViewHolder(View(RuntimeEnvironment.application)), 1500)
+        precomputedIds.clear()
+        section.emit(listOf(PrecomputedModel(2000, "a")) + (0 until 2000).map { PrecomputedModel(it.toLong(), "b") })
+
+        // The bound item moved to 1501, and the window follows it.
+        Assert.assertTrue(precomputedIds.size < 2000)
+        Assert.assertTrue(1500L in precomputedIds)
+        Assert.assertFalse(0L in precomputedIds)
+        Assert.assertFalse(2000L in precomputedIds)
+    }
+
+    @Test
+    fun precompute_runsAfterUpdatesAreDispatched() {
+        val section = EmittingSectionController()
+        val adapter = subscribedAdapter(section)
+        val itemCounts = mutableSetOf<Int>()
+        onPrecompute = { itemCounts.add(adapter.itemCount) }
+
+        try {
+            section.emit((0 until 10).map { PrecomputedModel(it.toLong(), "a") })
+        } finally {
+            onPrecompute = {}
+        }
+
+        Assert.assertEquals(setOf(10), itemCounts)
+    }
+
+    @Test
+    fun lazySection_withChanges_readsOnlyChangedChunks() {
+        val chunkSize = LazySectionItems.CHUNK_SIZE
+        val section = EmittingSectionController(lazy = true)
+        val adapter = subscribedAdapter(section)
+        val models = (0 until chunkSize * 10).map { TestModel(it.toLong(), "a") }
+        section.emit(CountingSeekable(models, 0, 0, 0))
+
+        val changed = models.toMutableList()
+        changed[chunkSize * 5] = TestModel(chunkSize * 5L, "b")
+        val source = CountingSeekable(changed, chunkSize * 5, 1, 1)
+        section.emit(source)
+
+        Assert.assertEquals("b", (adapter.getItemViewModel(chunkSize * 5) as TestModel).content)
+        // The first chunk, read by the precompute, was carried over, and only the changed chunk was read.
+        Assert.assertEquals(chunkSize, source.reads)
+    }
+
+    private class CountingSeekable(
+        private val models: List<AdapterViewModel>,
+        override val changeStart: Int,
+        override val removedCount: Int,
+        override val insertedCount: Int
+    ) : Seekable<AdapterViewModel>, LazySectionChanges {
+        var reads = 0
+
+        override fun size() = models.size
+
+        override fun get(position: Int): AdapterViewModel {
+            reads++
+            return models[position]
+        }
+
+        override fun iterator() = SeekableIterator(this)
+    }
+
+    @Test
+    fun diffChangedSections_severalChangedSections_matchesFullDiff() {
+        val sections = listOf(EmittingSectionController(), EmittingSectionController(), EmittingSectionController())
+        val release = PublishSubject.create<Unit>()
+        val adapter = subscribedAdapter(*sections.toTypedArray(), release = release)
+        val old = listOf(models(1, 2, 3, 4, 5), models(10, 11, 12, 13, 14), models(20, 21, 22, 23, 24))
+        old.forEachIndexed { i, models -> sections[i].emit(models) }
+        release.onNext(Unit)
+        val events = recordEvents(adapter)
+
+        // The middle section doesn't emit, so it keeps its items and is not diffed.
+        val new = listOf(
+                models(1, 2, 6, 3, 4, 5).apply { this[1] = TestModel(2, "changed") },
+                old[1],
+                models(20, 22, 23, 24).apply { this[2] = TestModel(23, "changed") })
+        sections[0].emit(new[0])
+        sections[2].emit(new[2])
+        release.onNext(Unit)
+
+        // The last section is notified first, at its offset, so the first section's insert doesn't shift it.
+        Assert.assertEquals(listOf("remove 11 1", "change 12 1", "change 1 1", "insert 2 1"), events)
+        assertMatchesFullDiff(old.flatten(), new.flatten(), events)
+        Assert.assertEquals(14, adapter.itemCount)
+    }
+
+    @Test
+    fun diffChangedSections_reorderedSection_replaysAtSectionOffset() {
+        val sections = listOf(EmittingSectionController(), EmittingSectionController(), EmittingSectionController())
+        val release = PublishSubject.create<Unit>()
+        val adapter = subscribedAdapter(*sections.toTypedArray(), release = release)
+        val old = listOf(models(1, 2, 3), models(10, 11, 12, 13, 14), models(20, 21))
+        old.forEachIndexed { i, models -> sections[i].emit(models) }
+        release.onNext(Unit)
+        val events = recordEvents(adapter)
+
+        val new = listOf(models(1, 3), models(12, 10, 11, 13, 15), models(20, 21, 22))
+        new.forEachIndexed { i, models -> sections[i].emit(models) }
+        release.onNext(Unit)
+
+        assertMatchesFullDiff(old.flatten(), new.flatten(), events)
+        Assert.assertEquals(
+                new.flatten().map { it.id },
+                (0 until adapter.itemCount).map { adapter.getItemViewModel(it).id })
+    }
+
+    @Test
+    fun hasSameSections_sectionRemoved_diffsWholeTable() {
+        val first = EmittingSectionController()
+        val second = EmittingSectionController()
+        val adapter = subscribedAdapter(first, second)
+        first.emit(models(1, 2, 3))
+        second.emit(models(10, 11))
+        val events = recordEvents(adapter)
+
+        adapter.removeSection(first)
+
+        Assert.assertEquals(listOf("remove 0 3"), events)
+        assertMatchesFullDiff(models(1, 2, 3, 10, 11), models(10, 11), events)
+    }
+
+    private fun models(vararg ids: Long) = ids.map { TestModel(it, "") }.toMutableList()
+
+    private fun recordEvents(adapter: ObservableViewModelSectionAdapter): MutableList<String> {
+        val events = mutableListOf<String>()
+        adapter.registerAdapterDataObserver(object : RecyclerView.AdapterDataObserver() {
+            override fun onChanged() {
+                events.add("reset")
+            }
+
+            override fun onItemRangeChanged(positionStart: Int, itemCount: Int, payload: Any?) {
+                events.add("change $positionStart $itemCount")
+            }
+
+            override fun onItemRangeInserted(positionStart: Int, itemCount: Int) {
+                events.add("insert $positionStart $itemCount")
+            }
+
+            override fun onItemRangeRemoved(positionStart: Int, itemCount: Int) {
+                events.add("remove $positionStart $itemCount")
+            }
+
+            override fun onItemRangeMoved(fromPosition: Int, toPosition: Int, itemCount: Int) {
+                events.add("move $fromPosition $toPosition")
+            }
+        })
+        return events
+    }
+
+    /**
+     * Checks that [events] turn [old] into [new] the way a DiffUtil run over the whole list does.
+     */
+    private fun assertMatchesFullDiff(old: List<TestModel>, new: List<TestModel>, events: List<String>) {
+        val fullDiffEvents = mutableListOf<String>()
+        DiffUtil.calculateDiff(object : DiffUtil.Callback() {
+            override fun getOldListSize() = old.size
+
+            override fun getNewListSize() = new.size
+
+            override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                    old[oldItemPosition].areItemsTheSame(new[newItemPosition])
+
+            override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                    old[oldItemPosition].areContentsTheSame(new[newItemPosition])
+        }, false).dispatchUpdatesTo(object : ListUpdateCallback {
+            override fun onInserted(position: Int, count: Int) {
+                fullDiffEvents.add("insert $position $count")
+            }
+
+            override fun onRemoved(position: Int, count: Int) {
+                fullDiffEvents.add("remove $position $count")
+            }
+
+            override fun onMoved(fromPosition: Int, toPosition: Int) {
+                fullDiffEvents.add("move $fromPosition $toPosition")
+            }
+
+            override fun onChanged(position: Int, count: Int, payload: Any?) {
+                fullDiffEvents.add("change $position $count")
+            }
+        })
+
+        val expected = replay(old, new, fullDiffEvents)
+        Assert.assertEquals(expected, replay(old, new, events))
+        Assert.assertFalse(expected.contains("misplaced"))
+    }
+
+    /**
+     * Applies [events] to the ids of [old], and describes each resulting position: the id of a kept item, marked if
+     * it was changed, or "inserted".
+     */
+    private fun replay(old: List<TestModel>, new: List<TestModel>, events: List<String>): List<String> {
+        val items = old.map<TestModel, String?> { it.id.toString() }.toMutableList()
+        for (event in events) {
+            val parts = event.split(" ")
+            val first = parts[1].toInt()
+            val second = parts[2].toInt()
+            when (parts[0]) {
+                "insert" -> repeat(second) { items.add(first, null) }
+                "remove" -> repeat(second) { items.removeAt(first) }
+                "move" -> items.add(second, items.removeAt(first))
+                "change" -> for (i in first until first + second) {
+                    items[i] = items[i] + "*"
+                }
+            }
+        }
+        Assert.assertEquals(new.size, items.size)
+        return items.mapIndexed { position, item ->
+            when {
+                item == null -> "inserted"
+                item.removeSuffix("*") != new[position].id.toString() -> "misplaced"
+                else -> item
+            }
+        }
+    }
+
+    private fun subscribedAdapter(
+        vararg sections: ObservableSectionController,
+        release: Observable<Unit>? = null
+    ): ObservableViewModelSectionAdapter {
+        val adapter = ObservableViewModelSectionAdapter(
+            viewFactory,
+            eventDispatcher,
+            Schedulers.trampoline(),
+            Schedulers.trampoline(),
+            sections.toList()
+        )
+        // Updates are diffed right away, or held until [release] emits, so that several sections can change at once.
+        adapter.updateCoalescingPolicy = object : UpdateCoalescingPolicy {
+            override fun <T> coalesce(updates: Observable<T>, scheduler: Scheduler) =
+                    if (release == null) updates else updates.sample(release)
+        }
+        adapter.subscribe()
+        return adapter
+    }
+
+    private fun itemIds(adapter: ObservableViewModelSectionAdapter) =
+        (0 until adapter.itemCount).map { adapter.getItemId(it) }
+
     private fun ObjectAssert<out Disposable>.isDisposed() = checkDisposeStatus(true)
     private fun ObjectAssert<out Disposable>.isNotDisposed() = checkDisposeStatus(false)
 
@@ -138,4 +420,62 @@ class ObservableViewModelSectionAdapterTest {
             disposable.dispose()
         }
     }
+
+    class EmittingSectionController(private val lazy: Boolean = false) : ObservableSectionController {
+        private val models = BehaviorSubject.create<Seekable<AdapterViewModel>>()
+        private val disposable = Disposables.empty()
+
+        fun emit(items: List<AdapterViewModel>) {
+            models.onNext(Seekables.copyOf(items))
+        }
+
+        fun emit(items: Seekable<AdapterViewModel>) {
+            models.onNext(items)
+        }
+
+        override fun getViewModels(): Observable<out Seekable<AdapterViewModel>> = models
+
+        override fun loadsItemsLazily() = lazy
+
+        override fun isDisposed() = disposable.isDisposed
+
+        override fun dispose() {
+            disposable.dispose()
+        }
+    }
+
+    private class TestModel(id: Long, val content: String) : AdapterViewModel(TestViewType.ITEM, id) {
+        override fun areContentsTheSame(model: AdapterViewModel) = content == (model as TestModel).content
+    }
+
+    private class PrecomputedModel(id: Long, val content: String) : AdapterViewModel(PrecomputedViewType.ITEM, id) {
+        override fun areContentsTheSame(model: AdapterViewModel) = content == (model as PrecomputedModel).content
+    }
+
+    class RecordingBinding : PrecomputingViewBinding<AdapterViewModel, Any>() {
+        override fun onCreate(itemView: View) {}
+
+        override fun precompute(model: AdapterViewModel): Any {
+            precomputedIds.add(model.id)
+            onPrecompute()
+            return model
+        }
+
+        override fun onBind(model: AdapterViewModel, previousModel: AdapterViewModel?, precomputed: Any) {}
+    }
+
+    enum class PrecomputedViewType(override val layoutId: Int) : BindingAdapterViewType {
+        ITEM(ViewFactory.DEFAULT_CONTAINER);
+
+        override val viewBindingClass: Class<out ViewBinding<*>> = RecordingBinding::class.java
+    }
+
+    companion object {
+        val precomputedIds = mutableSetOf<Long>()
+        var onPrecompute: () -> Unit = {}
+    }
+
+    private enum class TestViewType(override val layoutId: Int) : AdapterViewType {
+        ITEM(ViewFactory.DEFAULT_CONTAINER)
+    }
 }
@@ -0,0 +1,71 @@
+package com.snap.ui.recycling.adapter
+
+import com.nhaarman.mockito_kotlin.mock
+import com.snap.ui.recycling.SectionController
+import com.snap.ui.recycling.viewmodel.AdapterViewModel
+import com.snap.ui.seeking.Seekable
+import com.snap.ui.seeking.Seekables
+import org.junit.Assert
+import org.junit.Test
+
+class SectionIndexTest {
+
+    private val sections = List(6) { mock<SectionController>() }
+    private val index = SectionIndex()
+
+    @Test
+    fun sectionIndexAt_skipsEmptySections() {
+        index.add(sections[0], views(2))
+        index.add(sections[1], views(0))
+        index.add(sections[2], views(3))
+        index.add(sections[3], views(0))
+
+        Assert.assertEquals(5, index.itemCount)
+        Assert.assertEquals(listOf(0, 0, 2, 2, 2), (0 until 5).map { index.sectionIndexAt(it) })
+        Assert.assertEquals(2, index.getOffset(2))
+        Assert.assertEquals(5, index.getOffset(4))
+    }
+
+    @Test
+    fun set_shiftsLaterSections() {
+        for (section in sections) {
+            index.add(section, views(2))
+        }
+
+        index.set(1, views(5))
+
+        Assert.assertEquals(15, index.itemCount)
+        Assert.assertEquals(listOf(0, 2, 7, 9, 11, 13, 15), (0..6).map { index.getOffset(it) })
+        Assert.assertEquals(1, index.sectionIndexAt(6))
+        Assert.assertEquals(2, index.sectionIndexAt(7))
+    }
+
+    @Test
+    fun remove_shiftsLaterSections() {
+        index.add(sections[0], views(1))
+        index.add(sections[1], views(2))
+        index.add(sections[2], views(3))
+
+        index.remove(1)
+
+        Assert.assertEquals(2, index.sectionCount)
+        Assert.assertEquals(4, index.itemCount)
+        Assert.assertSame(sections[2], index.getController(1))
+        Assert.assertEquals(1, index.getOffset(1))
+        Assert.assertEquals(-1, index.indexOf(sections[1]))
+    }
+
+    @Test
+    fun reset_replacesSections() {
+        index.add(sections[0], views(1))
+        index.reset(linkedMapOf(sections[3] to views(2), sections[4] to views(4)))
+
+        Assert.assertEquals(2, index.sectionCount)
+        Assert.assertEquals(6, index.itemCount)
+        Assert.assertEquals(1, index.indexOf(sections[4]))
+        Assert.assertEquals(-1, index.indexOf(sections[0]))
+    }
+
+    private fun views(count: Int): Seekable<AdapterViewModel> =
+            Seekables.copyOf(List(count) { mock<AdapterViewModel>() })
+}
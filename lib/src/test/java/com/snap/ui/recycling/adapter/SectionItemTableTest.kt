@@ -0,0 +1,160 @@
+package com.snap.ui.recycling.adapter
+
+import com.nhaarman.mockito_kotlin.mock
+import com.snap.ui.recycling.AdapterViewType
+import com.snap.ui.recycling.LazySectionChanges
+import com.snap.ui.recycling.ObservableSectionController
+import com.snap.ui.recycling.factory.ViewFactory
+import com.snap.ui.recycling.viewmodel.AdapterViewModel
+import com.snap.ui.seeking.Seekable
+import com.snap.ui.seeking.SeekableIterator
+import com.snap.ui.seeking.Seekables
+import org.junit.Assert
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+
+class SectionItemTableTest {
+
+    private val section1 = mock<ObservableSectionController>()
+    private val section2 = mock<ObservableSectionController>()
+
+    @Test
+    fun fill_laysOutSectionsInOrder() {
+        val table = SectionItemTable()
+        table.fill(listOf(items(section1, 1, 2), SectionItems.notLoaded(section2), items(section2, 3)))
+
+        Assert.assertEquals(3, table.size)
+        Assert.assertEquals(listOf(1L, 2L, 3L), (0 until 3).map { table.model(it).id })
+        Assert.assertEquals(listOf(101L, 102L, 103L), (0 until 3).map { table.uniqueId(it) })
+        Assert.assertEquals(listOf(1, 2, 3), (0 until 3).map { table.viewTypeId(it) })
+        Assert.assertSame(section1, table.section(1))
+        Assert.assertSame(section2, table.section(2))
+        Assert.assertEquals(listOf(0, 2, 2, 3), (0..3).map { table.sectionOffset(it) })
+    }
+
+    @Test
+    fun fill_reusedTable_dropsPreviousItems() {
+        val table = SectionItemTable()
+        table.fill(listOf(items(section1, 1, 2, 3, 4)))
+        table.fill(listOf(items(section2, 5)))
+
+        Assert.assertEquals(1, table.size)
+        Assert.assertEquals(5L, table.model(0).id)
+        Assert.assertSame(section2, table.section(0))
+        try {
+            table.model(1)
+            Assert.fail()
+        } catch (e: IndexOutOfBoundsException) {
+        }
+    }
+
+    @Test
+    fun fill_lazySection_readsOnlyTouchedChunks() {
+        val chunkSize = LazySectionItems.CHUNK_SIZE
+        val source = Seekables.map(Seekables.copyOf((0 until chunkSize * 10).toList())) { id, _ ->
+            AdapterViewModel(TestViewType.VIEW, id.toLong())
+        }
+        val lazyItems = LazySectionItems(section2, source, object : ItemInfoResolver {
+            override fun viewTypeId(model: AdapterViewModel) = 7
+
+            override fun uniqueId(model: AdapterViewModel, viewTypeId: Int) = 1000 + model.id
+        })
+        val table = SectionItemTable()
+        table.fill(listOf(items(section1, 1, 2), lazyItems, items(section1, 3)))
+
+        Assert.assertEquals(chunkSize * 10 + 3, table.size)
+        Assert.assertEquals(0, lazyItems.loadedChunkCount)
+
+        Assert.assertEquals(2L, table.model(1).id)
+        Assert.assertEquals(5L, table.model(7).id)
+        Assert.assertEquals(1005L, table.uniqueId(7))
+        Assert.assertEquals(7, table.viewTypeId(7))
+        Assert.assertSame(section2, table.section(7))
+        Assert.assertEquals(1, lazyItems.loadedChunkCount)
+
+        val last = chunkSize * 10 + 2
+        Assert.assertEquals(3L, table.model(last).id)
+        Assert.assertEquals(103L, table.uniqueId(last))
+        Assert.assertSame(section1, table.section(last))
+        Assert.assertEquals((chunkSize * 5).toLong(), table.model(2 + chunkSize * 5).id)
+        Assert.assertEquals(2, lazyItems.loadedChunkCount)
+    }
+
+    @Test
+    fun lazySection_withChanges_reusesChunksBeforeChanges() {
+        val chunkSize = LazySectionItems.CHUNK_SIZE
+        val previous = LazySectionItems(section1, ChangedSeekable(chunkSize * 10, 0, 0, 0), resolver)
+        previous.model(3)
+        previous.model(chunkSize * 5)
+        val items = LazySectionItems(section1, ChangedSeekable(chunkSize * 10, chunkSize * 5, 1, 1), resolver,
+                null, previous)
+
+        Assert.assertNotNull(items.changesSince(previous))
+        Assert.assertNull(items.changesSince(SectionItems.notLoaded(section1)))
+
+        Assert.assertEquals(3L, items.model(3).id)
+        Assert.assertEquals(1003L, items.uniqueId(3))
+        Assert.assertEquals(0, items.loadedChunkCount)
+        // The chunk holding the changed item is read again.
+        items.model(chunkSize * 5)
+        Assert.assertEquals(1, items.loadedChunkCount)
+    }
+
+    @Test
+    fun lazySection_whileChunkIsRead_readsItemDirectly() {
+        val chunkSize = LazySectionItems.CHUNK_SIZE
+        val reading = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val source = object : ChangedSeekable(chunkSize * 4, 0, 0, 0) {
+            override fun get(position: Int): AdapterViewModel {
+                if (position == 0 && Thread.currentThread().name == "reader") {
+                    reading.countDown()
+                    release.await()
+                }
+                return super.get(position)
+            }
+        }
+        val items = LazySectionItems(section1, source, resolver)
+        val reader = Thread({ items.model(0) }, "reader")
+        reader.start()
+        reading.await()
+
+        Assert.assertEquals((chunkSize * 2).toLong(), items.model(chunkSize * 2).id)
+        Assert.assertEquals(1000L + chunkSize * 2, items.uniqueId(chunkSize * 2))
+        Assert.assertEquals(0, items.loadedChunkCount)
+
+        release.countDown()
+        reader.join()
+        Assert.assertEquals(1, items.loadedChunkCount)
+    }
+
+    private val resolver = object : ItemInfoResolver {
+        override fun viewTypeId(model: AdapterViewModel) = 7
+
+        override fun uniqueId(model: AdapterViewModel, viewTypeId: Int) = 1000 + model.id
+    }
+
+    private open class ChangedSeekable(
+        private val size: Int,
+        override val changeStart: Int,
+        override val removedCount: Int,
+        override val insertedCount: Int
+    ) : Seekable<AdapterViewModel>, LazySectionChanges {
+        override fun size() = size
+
+        override fun get(position: Int) = AdapterViewModel(TestViewType.VIEW, position.toLong())
+
+        override fun iterator() = SeekableIterator(this)
+    }
+
+    private fun items(section: ObservableSectionController, vararg ids: Long): ArraySectionItems {
+        val models = Array(ids.size) { AdapterViewModel(TestViewType.VIEW, ids[it]) }
+        val viewTypeIds = IntArray(ids.size) { ids[it].toInt() }
+        val uniqueIds = LongArray(ids.size) { 100 + ids[it] }
+        return ArraySectionItems(section, models, viewTypeIds, uniqueIds, true)
+    }
+
+    enum class TestViewType(override val layoutId: Int) : AdapterViewType {
+        VIEW(ViewFactory.DEFAULT_CONTAINER)
+    }
+}
@@ -0,0 +1,80 @@
+package com.snap.ui.recycling.adapter
+
+import com.nhaarman.mockito_kotlin.mock
+import com.snap.ui.recycling.AdapterViewType
+import com.snap.ui.recycling.SectionController
+import com.snap.ui.recycling.factory.ViewFactory
+import com.snap.ui.recycling.viewmodel.AdapterViewModel
+import com.snap.ui.seeking.Seekable
+import com.snap.ui.seeking.Seekables
+import io.reactivex.schedulers.Schedulers
+import org.junit.After
+import org.junit.Assert
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.shadows.ShadowLooper
+
+@RunWith(RobolectricTestRunner::class)
+class SectionedRecyclerViewAdapterTest {
+
+    private val section1 = mock<SectionController>()
+    private val section2 = mock<SectionController>()
+    private val subject = SectionedRecyclerViewAdapter(mock<ViewFactory>(), mock())
+
+    @Before
+    fun setup() {
+        subject.setDiffScheduler(Schedulers.trampoline())
+        ShadowLooper.pauseMainLooper()
+    }
+
+    @After
+    fun tearDown() {
+        ShadowLooper.unPauseMainLooper()
+    }
+
+    @Test
+    fun updateSectionAsync_appliesOnMainLooper() {
+        subject.updateSectionAsync(section1, models(1, 2, 3))
+        Assert.assertEquals(0, subject.itemCount)
+
+        ShadowLooper.idleMainLooper()
+
+        Assert.assertEquals(listOf(1L, 2L, 3L), ids())
+    }
+
+    @Test
+    fun updateSectionAsync_appliesUpdatesInOrder() {
+        subject.updateSectionAsync(section1, models(1, 2))
+        subject.updateSectionAsync(section2, models(3))
+        subject.updateSectionAsync(section1, models(4))
+        subject.removeSectionAsync(section2)
+        subject.updateSectionAsync(section2, models(5, 6))
+
+        ShadowLooper.idleMainLooper()
+
+        Assert.assertEquals(listOf(4L, 5L, 6L), ids())
+    }
+
+    @Test
+    fun updateSection_whileAsyncUpdatesPending_appliesThemFirst() {
+        subject.updateSectionAsync(section1, models(1, 2))
+        subject.updateSection(section2, models(3))
+
+        Assert.assertEquals(listOf(1L, 2L, 3L), ids())
+
+        // The pending diff is discarded.
+        ShadowLooper.idleMainLooper()
+        Assert.assertEquals(listOf(1L, 2L, 3L), ids())
+    }
+
+    private fun ids() = (0 until subject.itemCount).map { subject.getItem(it).id }
+
+    private fun models(vararg ids: Long): Seekable<AdapterViewModel> =
+            Seekables.copyOf(ids.map { AdapterViewModel(TestViewType.VIEW, it) })
+
+    enum class TestViewType(override val layoutId: Int) : AdapterViewType {
+        VIEW(ViewFactory.DEFAULT_CONTAINER)
+    }
+}
@@ -0,0 +1,85 @@
+package com.snap.ui.recycling.adapter
+
+import com.snap.ui.util.StableIds
+import org.junit.Assert
+import org.junit.Test
+
+class UniqueIdComposerTest {
+
+    private val composer = UniqueIdComposer()
+
+    @Test
+    fun compose_packsNarrowIds() {
+        val ids = composer.newSectionIds()
+        val id = ids.compose(42, 3, 2)
+
+        Assert.assertEquals(42L xor (2L shl 40) xor (3L shl 52), id)
+        Assert.assertFalse(UniqueIdComposer.isMapped(id))
+        Assert.assertEquals(0, ids.getMappedCount())
+    }
+
+    @Test
+    fun compose_packsIdsDerivedFromKeys() {
+        val ids = composer.newSectionIds()
+        val composed = (0 until 10000).map { ids.compose(StableIds.of("item:$it"), 1, 2) }
+
+        Assert.assertEquals(0, ids.getMappedCount())
+        Assert.assertTrue(composed.none { UniqueIdComposer.isMapped(it) })
+        Assert.assertEquals(10000, composed.toSet().size)
+    }
+
+    @Test
+    fun compose_mapsWideIdsWithoutCollisions() {
+        // Packing would collide: the model ids differ only in the section bits.
+        val first = composer.newSectionIds()
+        val second = composer.newSectionIds()
+
+        val a = first.compose(1L shl 40, 0, 0)
+        val b = second.compose(0, 0, 1)
+
+        Assert.assertNotEquals(a, b)
+        Assert.assertTrue(UniqueIdComposer.isMapped(a))
+        Assert.assertEquals(a, first.compose(1L shl 40, 0, 0))
+        Assert.assertNotEquals(a, first.compose(1L shl 40, 1, 0))
+        Assert.assertNotEquals(a, second.compose(1L shl 40, 0, 1))
+    }
+
+    @Test
+    fun newSectionIds_manyWideIds_keepsIdsAcrossEmissions() {
+        val keys = (0 until 10000).map { wideId(it) }
+        val first = composer.newSectionIds()
+        val firstIds = keys.map { first.compose(it, 0, 0) }
+        first.seal()
+
+        // The next emission drops the first item and adds a new one.
+        val second = composer.newSectionIds(first)
+        val secondIds = keys.drop(1).map { second.compose(it, 0, 0) }
+        val added = second.compose(wideId(10000), 0, 0)
+
+        Assert.assertEquals(firstIds.drop(1), secondIds)
+        Assert.assertEquals(10000, firstIds.toSet().size)
+        Assert.assertFalse(added in firstIds)
+        Assert.assertEquals(10000, second.getMappedCount())
+    }
+
+    @Test
+    fun newSectionIds_carriesOverFromAnySource() {
+        val key = wideId(0)
+        val displayed = composer.newSectionIds()
+        val id = displayed.compose(key, 0, 0)
+        // An emission without the item, which was never displayed.
+        val coalesced = composer.newSectionIds(displayed)
+
+        val next = composer.newSectionIds(coalesced, displayed)
+
+        Assert.assertEquals(id, next.compose(key, 0, 0))
+    }
+
+    @Test
+    fun countDuplicates() {
+        Assert.assertEquals(0, UniqueIdComposer.countDuplicates(longArrayOf(3, 1, 2), 3))
+        Assert.assertEquals(2, UniqueIdComposer.countDuplicates(longArrayOf(3, 1, 3, 3, 9), 4))
+    }
+
+    private fun wideId(index: Int) = (1L shl 40) + index
+}
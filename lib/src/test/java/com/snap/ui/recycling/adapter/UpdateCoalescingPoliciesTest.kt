@@ -0,0 +1,59 @@
+package com.snap.ui.recycling.adapter
+
+import io.reactivex.schedulers.TestScheduler
+import io.reactivex.subjects.PublishSubject
+import org.junit.Test
+import java.util.concurrent.TimeUnit.MILLISECONDS
+
+class UpdateCoalescingPoliciesTest {
+
+    private val scheduler = TestScheduler()
+    private val source = PublishSubject.create<Int>()
+
+    @Test
+    fun debounce_emitsLatestAfterQuietWindow() {
+        val observer = UpdateCoalescingPolicies.debounce(2, 32, MILLISECONDS)
+                .coalesce(source, scheduler)
+                .test()
+
+        source.onNext(1)
+        source.onNext(2)
+        scheduler.advanceTimeBy(1, MILLISECONDS)
+        observer.assertNoValues()
+
+        scheduler.advanceTimeBy(1, MILLISECONDS)
+        observer.assertValues(2)
+    }
+
+    @Test
+    fun debounce_continuousUpdates_emitsAtMaxLatency() {
+        val observer = UpdateCoalescingPolicies.debounce(2, 32, MILLISECONDS)
+                .coalesce(source, scheduler)
+                .test()
+
+        for (i in 1..40) {
+            source.onNext(i)
+            scheduler.advanceTimeBy(1, MILLISECONDS)
+        }
+        observer.assertValues(32)
+
+        scheduler.advanceTimeBy(2, MILLISECONDS)
+        observer.assertValues(32, 40)
+    }
+
+    @Test
+    fun adaptive_expensiveDiffs_widenWindow() {
+        val policy = UpdateCoalescingPolicies.adaptive(1, 20, 100, MILLISECONDS)
+        val observer = policy.coalesce(source, scheduler).test()
+        for (i in 0 until 10) {
+            policy.onUpdateDiffed(MILLISECONDS.toNanos(8))
+        }
+
+        source.onNext(1)
+        scheduler.advanceTimeBy(5, MILLISECONDS)
+        observer.assertNoValues()
+
+        scheduler.advanceTimeBy(15, MILLISECONDS)
+        observer.assertValues(1)
+    }
+}
@@ -0,0 +1,81 @@
+package com.snap.ui.recycling.factory
+
+import android.view.View
+import com.nhaarman.mockito_kotlin.mock
+import com.snap.ui.event.EventDispatcher
+import com.snap.ui.recycling.AdapterViewType
+import com.snap.ui.recycling.SectionController
+import com.snap.ui.recycling.ViewBinding
+import com.snap.ui.recycling.viewmodel.AdapterViewModel
+import org.junit.Assert
+import org.junit.Test
+
+class BindingViewHolderTest {
+
+    private val binding = TextBinding()
+    private val holder = BindingViewHolder<TextModel, SectionController>(mock<View>(), binding)
+    private val eventDispatcher = mock<EventDispatcher>()
+
+    @Test
+    fun bind_withPayloads_bindsChangedFields() {
+        val first = TextModel("a", "b")
+        val second = TextModel("a", "c")
+        holder.bind(first, eventDispatcher, null)
+        holder.bind(second, eventDispatcher, null, listOf<Any>(first))
+
+        Assert.assertEquals(listOf("bind", "payloads ${TextModel.SUBTITLE}"), binding.calls)
+        Assert.assertSame(second, holder.boundViewModel)
+    }
+
+    @Test
+    fun bind_withoutPayloads_bindsInFull() {
+        holder.bind(TextModel("a", "b"), eventDispatcher, null)
+        holder.bind(TextModel("a", "c"), eventDispatcher, null, emptyList())
+
+        Assert.assertEquals(listOf("bind", "bind"), binding.calls)
+    }
+
+    @Test
+    fun bind_withPayloads_beforeFirstBind_bindsInFull() {
+        holder.bind(TextModel("a", "b"), eventDispatcher, null, listOf<Any>(TextModel("a", "a")))
+
+        Assert.assertEquals(listOf("bind"), binding.calls)
+    }
+
+    class TextModel(val title: String, val subtitle: String) : AdapterViewModel(TestViewType.VIEW, 1) {
+        override fun getChangedFields(previousModel: AdapterViewModel): Long {
+            val previous = previousModel as TextModel
+            var changes = 0L
+            if (title != previous.title) {
+                changes = changes or TITLE
+            }
+            if (subtitle != previous.subtitle) {
+                changes = changes or SUBTITLE
+            }
+            return changes
+        }
+
+        companion object {
+            const val TITLE = 1L
+            const val SUBTITLE = 2L
+        }
+    }
+
+    class TextBinding : ViewBinding<TextModel>() {
+        val calls = ArrayList<String>()
+
+        override fun onCreate(itemView: View) {}
+
+        override fun onBind(model: TextModel, previousModel: TextModel?) {
+            calls.add("bind")
+        }
+
+        override fun onBindPayloads(model: TextModel, previousModel: TextModel, changedFields: Long) {
+            calls.add("payloads $changedFields")
+        }
+    }
+
+    enum class TestViewType(override val layoutId: Int) : AdapterViewType {
+        VIEW(ViewFactory.DEFAULT_CONTAINER)
+    }
+}
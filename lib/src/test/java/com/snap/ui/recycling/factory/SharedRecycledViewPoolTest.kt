@@ -0,0 +1,70 @@
+package com.snap.ui.recycling.factory
+
+import com.snap.ui.recycling.AdapterViewType
+import com.snap.ui.recycling.BindingContext
+import org.junit.Assert
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class SharedRecycledViewPoolTest {
+
+    private val subject = SharedRecycledViewPool()
+
+    @Test
+    fun onViewAttached_sizesPoolFromPeakOnScreenCount() {
+        repeat(8) { subject.onViewAttached(1) }
+        repeat(8) { subject.onViewDetached(1) }
+        repeat(3) { subject.onViewAttached(1) }
+
+        Assert.assertEquals(8, subject.getPeakOnScreenCount(1))
+        Assert.assertEquals(10, subject.getMaxRecycledViews(1))
+        Assert.assertEquals(SharedRecycledViewPool.MIN_MAX_RECYCLED_VIEWS, subject.getMaxRecycledViews(2))
+    }
+
+    @Test
+    fun onViewAttached_capsPoolSize() {
+        repeat(100) { subject.onViewAttached(1) }
+
+        Assert.assertEquals(SharedRecycledViewPool.MAX_MAX_RECYCLED_VIEWS, subject.getMaxRecycledViews(1))
+    }
+
+    @Test
+    fun registry_sharesPoolBetweenFactoriesOfSameTypes() {
+        val registry = RecycledViewPoolRegistry()
+        val factories = listOf(
+                ViewFactory(setOf(TypesA::class.java, TypesB::class.java)),
+                ViewFactory(setOf(TypesA::class.java, TypesB::class.java)),
+                ViewFactory(setOf(TypesA::class.java)))
+        factories.forEach { it.setRecycledViewPoolRegistry(registry) }
+
+        Assert.assertSame(factories[0].recycledViewPool, factories[1].recycledViewPool)
+        Assert.assertNotSame(factories[0].recycledViewPool, factories[2].recycledViewPool)
+        Assert.assertNotSame(factories[0].recycledViewPool, ViewFactory(TypesA::class.java).recycledViewPool)
+    }
+
+    @Test
+    fun registry_doesNotSharePoolBetweenBindingContexts() {
+        val registry = RecycledViewPoolRegistry()
+        val context = object : BindingContext {}
+        val factories = listOf(
+                ViewFactory(context, TypesA::class.java),
+                ViewFactory(context, TypesA::class.java),
+                ViewFactory(object : BindingContext {}, TypesA::class.java),
+                ViewFactory(TypesA::class.java))
+        factories.forEach { it.setRecycledViewPoolRegistry(registry) }
+
+        Assert.assertSame(factories[0].recycledViewPool, factories[1].recycledViewPool)
+        Assert.assertNotSame(factories[0].recycledViewPool, factories[2].recycledViewPool)
+        Assert.assertNotSame(factories[0].recycledViewPool, factories[3].recycledViewPool)
+    }
+
+    enum class TypesA(override val layoutId: Int) : AdapterViewType {
+        A(ViewFactory.DEFAULT_CONTAINER)
+    }
+
+    enum class TypesB(override val layoutId: Int) : AdapterViewType {
+        B(ViewFactory.DEFAULT_CONTAINER)
+    }
+}
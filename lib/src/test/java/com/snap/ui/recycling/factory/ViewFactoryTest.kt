@@ -11,6 +11,7 @@ import com.snap.ui.recycling.AdapterViewType
 import io.reactivex.disposables.CompositeDisposable
 import io.reactivex.observers.TestObserver
 import org.junit.After
+import org.junit.Assert
 import org.junit.Before
 import org.junit.Test
 
@@ -72,6 +73,28 @@ class ViewFactoryTest {
         }
     }
 
+    @Test
+    fun getViewTypeId_numbersTypesAcrossClasses() {
+        val ids = listOf(
+                DummyAdapterViewType1.SOME_VIEW_0,
+                DummyAdapterViewType1.SOME_VIEW_1,
+                DummyAdapterViewType2.SOME_VIEW_2,
+                DummyAdapterViewType2.SOME_VIEW_3
+        ).map { viewFactory.getViewTypeId(it) }
+
+        Assert.assertEquals(listOf(0, 1, 2, 3), ids)
+    }
+
+    @Test(expected = IllegalStateException::class)
+    fun getViewTypeId_unregisteredType_throws() {
+        viewFactory.getViewTypeId(UnregisteredAdapterViewType.SOME_VIEW_4)
+    }
+
+    @Test(expected = IllegalStateException::class)
+    fun createViewHolder_invalidViewType_throws() {
+        viewFactory.createViewHolder(context, 4, parent)
+    }
+
     enum class DummyAdapterViewType1(override val layoutId: Int) : AdapterViewType {
         SOME_VIEW_0(ViewFactory.DEFAULT_CONTAINER),
         SOME_VIEW_1(ViewFactory.DEFAULT_CONTAINER)
@@ -81,4 +104,8 @@ class ViewFactoryTest {
         SOME_VIEW_2(ViewFactory.DEFAULT_CONTAINER),
         SOME_VIEW_3(ViewFactory.DEFAULT_CONTAINER)
     }
+
+    enum class UnregisteredAdapterViewType(override val layoutId: Int) : AdapterViewType {
+        SOME_VIEW_4(ViewFactory.DEFAULT_CONTAINER)
+    }
 }
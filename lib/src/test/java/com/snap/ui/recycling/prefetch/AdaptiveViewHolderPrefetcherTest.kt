@@ -0,0 +1,97 @@
+package com.snap.ui.recycling.prefetch
+
+import android.content.Context
+import android.view.LayoutInflater
+import android.widget.FrameLayout
+import com.snap.ui.recycling.AdapterViewType
+import com.snap.ui.recycling.factory.ViewFactory
+import io.reactivex.schedulers.Schedulers
+import org.junit.Assert
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+
+@RunWith(RobolectricTestRunner::class)
+class AdaptiveViewHolderPrefetcherTest {
+
+    private val context = RuntimeEnvironment.application
+    private val preferences = context.getSharedPreferences("test", Context.MODE_PRIVATE)
+    private val viewFactory = ViewFactory(TestViewType::class.java)
+
+    private fun createSubject() = AdaptiveViewHolderPrefetcher(
+            CompletableViewHolderPrefetcher(
+                    viewFactory, Schedulers.trampoline(), LayoutInflater.from(context), FrameLayout(context)),
+            viewFactory,
+            preferences,
+            "screen",
+            maxPerType = 4,
+            maxTotal = 5)
+
+    @Test
+    fun getPrefetchedViewHolder_countsRequests() {
+        val subject = createSubject()
+        subject.getPrefetchedViewHolder(TestViewType.CELL)
+        subject.getPrefetchedViewHolder(TestViewType.CELL)
+
+        Assert.assertEquals(2, subject.getRequestCount(TestViewType.CELL))
+        Assert.assertEquals(0, subject.getRequestCount(TestViewType.HEADER))
+    }
+
+    @Test
+    fun save_learnsCountsForNextVisit() {
+        val firstVisit = createSubject()
+        repeat(3) { firstVisit.getPrefetchedViewHolder(TestViewType.CELL) }
+        repeat(2) { firstVisit.getPrefetchedViewHolder(TestViewType.HEADER) }
+        firstVisit.save()
+
+        val nextVisit = createSubject()
+
+        // The first visit seeds the averages.
+        Assert.assertEquals(mapOf(TestViewType.CELL to 3, TestViewType.HEADER to 2), nextVisit.getLearnedCounts())
+
+        nextVisit.prefetch().blockingAwait()
+        Assert.assertNotNull(nextVisit.getPrefetchedViewHolder(TestViewType.CELL))
+    }
+
+    @Test
+    fun save_averagesWithPreviousVisits() {
+        val firstVisit = createSubject()
+        repeat(4) { firstVisit.getPrefetchedViewHolder(TestViewType.CELL) }
+        firstVisit.save()
+
+        val nextVisit = createSubject()
+        repeat(2) { nextVisit.getPrefetchedViewHolder(TestViewType.CELL) }
+        nextVisit.save()
+
+        Assert.assertEquals(mapOf(TestViewType.CELL to 3), createSubject().getLearnedCounts())
+    }
+
+    @Test
+    fun save_startsCountingNextVisit() {
+        val subject = createSubject()
+        repeat(4) { subject.getPrefetchedViewHolder(TestViewType.CELL) }
+        subject.save()
+        Assert.assertEquals(0, subject.getRequestCount(TestViewType.CELL))
+
+        // A visit without requests, rather than the first visit again.
+        subject.save()
+        Assert.assertEquals(mapOf(TestViewType.CELL to 2), subject.getLearnedCounts())
+    }
+
+    @Test
+    fun save_decaysTypesNotRequested() {
+        val firstVisit = createSubject()
+        firstVisit.getPrefetchedViewHolder(TestViewType.FOOTER)
+        firstVisit.save()
+        repeat(3) { createSubject().save() }
+
+        Assert.assertEquals(emptyMap<AdapterViewType, Int>(), createSubject().getLearnedCounts())
+    }
+
+    enum class TestViewType(override val layoutId: Int) : AdapterViewType {
+        HEADER(ViewFactory.DEFAULT_CONTAINER),
+        CELL(ViewFactory.DEFAULT_CONTAINER),
+        FOOTER(ViewFactory.DEFAULT_CONTAINER)
+    }
+}
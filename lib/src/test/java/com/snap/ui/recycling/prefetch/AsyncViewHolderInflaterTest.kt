@@ -0,0 +1,126 @@
+package com.snap.ui.recycling.prefetch
+
+import android.view.LayoutInflater
+import android.widget.FrameLayout
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.times
+import com.nhaarman.mockito_kotlin.verify
+import com.snap.ui.event.EventDispatcher
+import com.snap.ui.recycling.AdapterViewType
+import com.snap.ui.recycling.SectionController
+import com.snap.ui.recycling.factory.ViewFactory
+import com.snap.ui.recycling.factory.ViewModelViewHolder
+import com.snap.ui.recycling.viewmodel.AdapterViewModel
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Schedulers
+import io.reactivex.schedulers.TestScheduler
+import org.junit.Assert
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+
+@RunWith(RobolectricTestRunner::class)
+class AsyncViewHolderInflaterTest {
+
+    private val context = RuntimeEnvironment.application
+    private val viewFactory = ViewFactory(TestViewType::class.java)
+
+    private fun createSubject(
+        usePlaceholders: Boolean = false,
+        inflationScheduler: Scheduler = Schedulers.trampoline()
+    ) = AsyncViewHolderInflater(
+            viewFactory,
+            inflationScheduler,
+            LayoutInflater.from(context),
+            FrameLayout(context),
+            lowWaterMark = 1,
+            highWaterMark = 3,
+            usePlaceholders = usePlaceholders,
+            mainThreadScheduler = Schedulers.trampoline())
+
+    @Test
+    fun getPrefetchedViewHolder_refillsToHighWaterMark() {
+        val subject = createSubject()
+
+        Assert.assertNull(subject.getPrefetchedViewHolder(TestViewType.CELL))
+        Assert.assertEquals(3, subject.getPooledCount(TestViewType.CELL))
+        Assert.assertEquals(0, subject.getPooledCount(TestViewType.HEADER))
+    }
+
+    @Test
+    fun getPrefetchedViewHolder_refillsOnlyBelowLowWaterMark() {
+        val subject = createSubject()
+        subject.getPrefetchedViewHolder(TestViewType.CELL)
+
+        Assert.assertNotNull(subject.getPrefetchedViewHolder(TestViewType.CELL))
+        Assert.assertEquals(2, subject.getPooledCount(TestViewType.CELL))
+
+        Assert.assertNotNull(subject.getPrefetchedViewHolder(TestViewType.CELL))
+        Assert.assertEquals(3, subject.getPooledCount(TestViewType.CELL))
+    }
+
+    @Test
+    fun createViewHolder_withPlaceholders_swapsInflatedView() {
+        val subject = createSubject(usePlaceholders = true)
+        viewFactory.setAsyncInflater(subject)
+        var inflated: ViewModelViewHolder<*>? = null
+
+        subject.inflate(TestViewType.CELL, object : AsyncViewHolderInflater.Callback {
+            override fun onInflated(viewHolder: ViewModelViewHolder<*>) {
+                inflated = viewHolder
+            }
+        })
+        val holder = viewFactory.createViewHolder(
+                context, viewFactory.getViewTypeId(TestViewType.HEADER), FrameLayout(context))
+
+        Assert.assertNotNull(inflated)
+        // Inflation is synchronous here, so the placeholder already holds the inflated view.
+        Assert.assertEquals(1, (holder.itemView as FrameLayout).childCount)
+    }
+
+    @Test
+    fun createViewHolder_withPlaceholders_bindsModelBoundBeforeInflation() {
+        val inflationScheduler = TestScheduler()
+        viewFactory.setAsyncInflater(createSubject(usePlaceholders = true, inflationScheduler = inflationScheduler))
+        val section = mock<SectionController>()
+        val model = AdapterViewModel(TestViewType.CELL)
+
+        val holder = createPlaceholder()
+        holder.bind(model, mock<EventDispatcher>(), section)
+        Assert.assertSame(holder, holder.bindingHolder)
+
+        inflationScheduler.triggerActions()
+
+        val delegate = holder.bindingHolder
+        Assert.assertNotSame(holder, delegate)
+        Assert.assertSame(model, delegate.boundViewModel)
+        Assert.assertSame(model, holder.boundViewModel)
+        Assert.assertEquals(1, (holder.itemView as FrameLayout).childCount)
+        // Only the placeholder, which the RecyclerView holds, notifies the section.
+        verify(section, times(1)).onViewBound(holder.itemView, model)
+    }
+
+    @Test
+    fun dispose_inflatesPendingPlaceholdersOnMainThread() {
+        val inflationScheduler = TestScheduler()
+        val subject = createSubject(usePlaceholders = true, inflationScheduler = inflationScheduler)
+        viewFactory.setAsyncInflater(subject)
+        val holder = createPlaceholder()
+
+        subject.dispose()
+        inflationScheduler.triggerActions()
+
+        Assert.assertEquals(1, (holder.itemView as FrameLayout).childCount)
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun createPlaceholder() = viewFactory.createViewHolder(
+            context, viewFactory.getViewTypeId(TestViewType.CELL), FrameLayout(context))
+            as ViewModelViewHolder<AdapterViewModel>
+
+    enum class TestViewType(override val layoutId: Int) : AdapterViewType {
+        HEADER(ViewFactory.DEFAULT_CONTAINER),
+        CELL(ViewFactory.DEFAULT_CONTAINER)
+    }
+}
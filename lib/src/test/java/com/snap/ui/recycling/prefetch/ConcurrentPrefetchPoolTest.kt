@@ -0,0 +1,95 @@
+package com.snap.ui.recycling.prefetch
+
+import org.junit.Assert
+import org.junit.Test
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.concurrent.thread
+
+class ConcurrentPrefetchPoolTest {
+
+    @Test
+    fun offer_rejectsItemsOverTypeCapacity() {
+        val subject = ConcurrentPrefetchPool<String>(typeCount = 2, maxPerType = 3, maxTotalCost = 100)
+        for (i in 0 until 3) {
+            Assert.assertTrue(subject.offer(0, "a$i", 1))
+        }
+        Assert.assertFalse(subject.offer(0, "a3", 1))
+
+        Assert.assertEquals(listOf("a0", "a1", "a2", null), List(4) { subject.take(0) })
+        Assert.assertEquals(3L, subject.hitCount)
+        Assert.assertEquals(1L, subject.missCount)
+        Assert.assertEquals(1L, subject.evictionCount)
+    }
+
+    @Test
+    fun offer_unbounded_keepsAllItemsWithinBudget() {
+        val subject = ConcurrentPrefetchPool<String>(typeCount = 1, maxTotalCost = 20)
+        for (i in 0 until 20) {
+            Assert.assertTrue(subject.offer(0, "a$i", 1))
+        }
+        Assert.assertFalse(subject.offer(0, "a20", 1))
+
+        Assert.assertEquals(20, subject.size(0))
+        Assert.assertEquals(List(20) { "a$it" }, List(20) { subject.take(0) })
+        Assert.assertEquals(0L, subject.getTotalCost())
+    }
+
+    @Test
+    fun take_afterBudgetExceeded_evictsLeastRecentlyTakenType() {
+        val subject = ConcurrentPrefetchPool<String>(typeCount = 3, maxPerType = 4, maxTotalCost = 40)
+        subject.offer(0, "a0", 10)
+        subject.offer(0, "a1", 10)
+        subject.offer(1, "b0", 10)
+        subject.offer(2, "c0", 10)
+        subject.take(1)
+        subject.take(2)
+        subject.offer(2, "c1", 10)
+        subject.offer(2, "c2", 10)
+        Assert.assertFalse(subject.offer(2, "c3", 10))
+
+        subject.take(2)
+
+        // Type 0 was never taken, so it makes room.
+        Assert.assertEquals(1, subject.size(0))
+        Assert.assertEquals(20L, subject.getTotalCost())
+        Assert.assertTrue(subject.offer(2, "c3", 10))
+    }
+
+    @Test
+    fun offer_fromManyThreads_losesNoItems() {
+        offerFromManyThreads(ConcurrentPrefetchPool(typeCount = 1, maxPerType = 8, maxTotalCost = Long.MAX_VALUE))
+    }
+
+    @Test
+    fun offer_unboundedFromManyThreads_losesNoItems() {
+        offerFromManyThreads(ConcurrentPrefetchPool(typeCount = 1, maxTotalCost = Long.MAX_VALUE))
+    }
+
+    private fun offerFromManyThreads(subject: ConcurrentPrefetchPool<Int>) {
+        val producers = 4
+        val perProducer = 10_000
+        val accepted = AtomicInteger()
+        val start = CountDownLatch(1)
+        val taken = Collections.synchronizedSet(HashSet<Int>())
+        val threads = List(producers) { producer ->
+            thread {
+                start.await()
+                for (i in 0 until perProducer) {
+                    if (subject.offer(0, producer * perProducer + i, 1)) {
+                        accepted.incrementAndGet()
+                    }
+                }
+            }
+        }
+
+        start.countDown()
+        while (threads.any { it.isAlive } || subject.size(0) > 0) {
+            subject.take(0)?.let { Assert.assertTrue("Taken twice: $it", taken.add(it)) }
+        }
+
+        Assert.assertEquals(accepted.get(), taken.size)
+        Assert.assertEquals(0L, subject.getTotalCost())
+    }
+}
@@ -0,0 +1,75 @@
+package com.snap.ui.recycling.prefetch
+
+import android.content.ComponentCallbacks2
+import org.junit.Assert
+import org.junit.Test
+
+class PrefetchPoolTest {
+
+    private val subject = PrefetchPool<String, String>(maxPerType = 2, maxTotalCost = 100)
+
+    @Test
+    fun add_rejectsItemsOverTypeCapacity() {
+        Assert.assertTrue(subject.add("a", "a1", 10))
+        Assert.assertTrue(subject.add("a", "a2", 10))
+        Assert.assertFalse(subject.add("a", "a3", 10))
+
+        Assert.assertEquals(2, subject.size("a"))
+        Assert.assertEquals(1L, subject.evictionCount)
+    }
+
+    @Test
+    fun add_unbounded_keepsAllItemsWithinBudget() {
+        val unbounded = PrefetchPool<String, String>(maxTotalCost = 100)
+        for (i in 0 until 10) {
+            Assert.assertTrue(unbounded.add("a", "a$i", 10))
+        }
+
+        Assert.assertEquals(10, unbounded.size("a"))
+        Assert.assertEquals(0L, unbounded.evictionCount)
+    }
+
+    @Test
+    fun add_overBudget_evictsLeastRecentlyUsedType() {
+        subject.add("a", "a1", 30)
+        subject.add("b", "b1", 30)
+        subject.add("a", "a2", 30)
+        subject.add("c", "c1", 30)
+
+        // "b" is the least recently used type.
+        Assert.assertEquals(0, subject.size("b"))
+        Assert.assertEquals(2, subject.size("a"))
+        Assert.assertEquals(1, subject.size("c"))
+        Assert.assertEquals(90L, subject.getTotalCost())
+    }
+
+    @Test
+    fun take_countsHitsAndMisses() {
+        subject.add("a", "a1", 10)
+
+        Assert.assertEquals("a1", subject.take("a"))
+        Assert.assertNull(subject.take("a"))
+        Assert.assertNull(subject.take("b"))
+
+        Assert.assertEquals(1L, subject.hitCount)
+        Assert.assertEquals(2L, subject.missCount)
+        Assert.assertEquals(0L, subject.getTotalCost())
+    }
+
+    @Test
+    fun onTrimMemory_dropsMostExpensiveTypesFirst() {
+        subject.add("cheap", "c1", 10)
+        subject.add("cheap", "c2", 10)
+        subject.add("expensive", "e1", 40)
+
+        subject.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)
+
+        Assert.assertEquals(0, subject.size("expensive"))
+        Assert.assertEquals(2, subject.size("cheap"))
+
+        subject.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN)
+
+        Assert.assertEquals(0, subject.size("cheap"))
+        Assert.assertEquals(0L, subject.getTotalCost())
+    }
+}
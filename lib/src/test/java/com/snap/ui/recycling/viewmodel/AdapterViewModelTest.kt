@@ -0,0 +1,98 @@
+package com.snap.ui.recycling.viewmodel
+
+import com.nhaarman.mockito_kotlin.mock
+import com.snap.ui.recycling.AdapterViewType
+import com.snap.ui.recycling.factory.ViewFactory
+import org.junit.Assert
+import org.junit.Test
+
+class AdapterViewModelTest {
+
+    @Test
+    fun hasSameContents_withoutFingerprints_comparesContents() {
+        Assert.assertTrue(TextModel(1, "a").hasSameContents(TextModel(1, "a")))
+        Assert.assertFalse(TextModel(1, "a").hasSameContents(TextModel(1, "b")))
+    }
+
+    @Test
+    fun hasSameContents_withFingerprints_skipsContents() {
+        val first = FingerprintedModel(1, 42)
+        val second = FingerprintedModel(1, 42)
+
+        Assert.assertTrue(first.hasSameContents(second))
+        Assert.assertFalse(first.hasSameContents(FingerprintedModel(1, 43)))
+        Assert.assertEquals(0, first.contentComparisons + second.contentComparisons)
+        Assert.assertEquals(1, first.fingerprintComputations)
+    }
+
+    @Test
+    fun listViewModel_fingerprintedChildren_skipsListComparison() {
+        val first = ListViewModel(listOf(FingerprintedModel(1, 10), FingerprintedModel(2, 20)), TestViewType.VIEW, 5)
+        val same = ListViewModel(listOf(FingerprintedModel(1, 10), FingerprintedModel(2, 20)), TestViewType.VIEW, 5)
+        val changed = ListViewModel(listOf(FingerprintedModel(1, 10), FingerprintedModel(2, 21)), TestViewType.VIEW, 5)
+
+        // The children are different instances, so only the fingerprints can tell these apart.
+        Assert.assertTrue(first.hasSameContents(same))
+        Assert.assertFalse(first.hasSameContents(changed))
+    }
+
+    @Test
+    fun listViewModel_plainChildren_verifiesFingerprintMatch() {
+        val child = TextModel(1, "a")
+        val first = ListViewModel(listOf(child), TestViewType.VIEW, 5)
+
+        Assert.assertTrue(first.hasSameContents(ListViewModel(listOf(child), TestViewType.VIEW, 5)))
+        Assert.assertFalse(first.hasSameContents(ListViewModel(listOf(TextModel(1, "a")), TestViewType.VIEW, 5)))
+    }
+
+    @Test
+    fun listViewModel_subclass_verifiesFingerprintMatch() {
+        val children = listOf(FingerprintedModel(1, 10), FingerprintedModel(2, 20))
+        val first = TitledListModel(children, "a")
+
+        Assert.assertTrue(first.hasSameContents(TitledListModel(children, "a")))
+        // Same children, so same fingerprint, but the subclass also compares its title.
+        Assert.assertFalse(first.hasSameContents(TitledListModel(children, "b")))
+    }
+
+    @Test
+    fun horizontalScrollerModel_fingerprintedChildren_skipsListComparison() {
+        val first = scroller(listOf(FingerprintedModel(1, 10), FingerprintedModel(2, 20)))
+        val same = scroller(listOf(FingerprintedModel(1, 10), FingerprintedModel(2, 20)))
+
+        Assert.assertTrue(first.hasSameContents(same))
+        Assert.assertFalse(first.hasSameContents(scroller(listOf(FingerprintedModel(1, 10)))))
+    }
+
+    private fun scroller(models: List<AdapterViewModel>) =
+            HorizontalScrollerModel(TestViewType.VIEW, mock<ViewFactory>(), mock(), models, 5, 0, 0, 0)
+
+    private class TitledListModel(models: List<AdapterViewModel>, val title: String) :
+            ListViewModel<AdapterViewModel>(models, TestViewType.VIEW, 5) {
+        override fun areContentsTheSame(model: AdapterViewModel) =
+                super.areContentsTheSame(model) && model is TitledListModel && model.title == title
+    }
+
+    private class TextModel(id: Long, val text: String) : AdapterViewModel(TestViewType.VIEW, id) {
+        override fun areContentsTheSame(model: AdapterViewModel) = model is TextModel && model.text == text
+    }
+
+    private class FingerprintedModel(id: Long, val value: Long) : AdapterViewModel(TestViewType.VIEW, id) {
+        var contentComparisons = 0
+        var fingerprintComputations = 0
+
+        override fun areContentsTheSame(model: AdapterViewModel): Boolean {
+            contentComparisons++
+            return model is FingerprintedModel && model.value == value
+        }
+
+        override fun computeContentFingerprint(): Long {
+            fingerprintComputations++
+            return combineFingerprint(NO_FINGERPRINT, value)
+        }
+    }
+
+    enum class TestViewType(override val layoutId: Int) : AdapterViewType {
+        VIEW(ViewFactory.DEFAULT_CONTAINER)
+    }
+}
@@ -24,4 +24,49 @@ class ConcatSeekableTest {
         } catch (e: IndexOutOfBoundsException) {
         }
     }
+
+    @Test
+    fun test_concat_withEmptyChildren() {
+        val empty = Seekables.empty<Int>()
+        val concat = ConcatSeekable(listOf(
+                empty,
+                ListSeekable(listOf(1, 2)),
+                empty,
+                empty,
+                ListSeekable(listOf(3)),
+                empty,
+                ListSeekable(listOf(4, 5, 6)),
+                empty
+        ))
+
+        Assert.assertEquals(6, concat.size())
+        for (i in 0 until concat.size()) {
+            Assert.assertEquals(i + 1, concat[i])
+        }
+
+        try {
+            concat[-1]
+            Assert.fail()
+        } catch (e: IndexOutOfBoundsException) {
+        }
+        try {
+            concat[6]
+            Assert.fail()
+        } catch (e: IndexOutOfBoundsException) {
+        }
+    }
+
+    @Test
+    fun test_concat_allEmpty() {
+        val concat = ConcatSeekable(listOf(Seekables.empty<Int>(), Seekables.empty()))
+        Assert.assertEquals(0, concat.size())
+        Assert.assertEquals(emptyList<Int>(), concat.toList())
+    }
+
+    @Test
+    fun test_concat_noChildren() {
+        val concat = ConcatSeekable(emptyList<Seekable<Int>>())
+        Assert.assertEquals(0, concat.size())
+        Assert.assertFalse(concat.iterator().hasNext())
+    }
 }
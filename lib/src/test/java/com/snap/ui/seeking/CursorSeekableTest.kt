@@ -0,0 +1,132 @@
+package com.snap.ui.seeking
+
+import android.database.Cursor
+import android.database.CursorWrapper
+import android.database.MatrixCursor
+import io.reactivex.functions.Function
+import org.junit.Assert
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class CursorSeekableTest {
+
+    private val cursor = CountingCursor(rows(100))
+    private val mapper = Function<Cursor, Int> { it.getInt(0) }
+
+    @Test
+    fun get_mapsRows() {
+        val seekable = CursorSeekable(cursor, mapper)
+
+        Assert.assertEquals((0 until 100).toList(), seekable.toList())
+        try {
+            seekable[100]
+            Assert.fail()
+        } catch (e: IndexOutOfBoundsException) {
+        }
+    }
+
+    @Test
+    fun windowed_mapsRows() {
+        val seekable = CursorSeekable(cursor, mapper, 16)
+
+        Assert.assertEquals((0 until 100).toList(), seekable.toList())
+        Assert.assertEquals(99, seekable[99])
+        Assert.assertEquals(40, seekable[40])
+        try {
+            seekable[100]
+            Assert.fail()
+        } catch (e: IndexOutOfBoundsException) {
+        }
+    }
+
+    @Test
+    fun windowed_iteration_doesNotSeek() {
+        val rowCursor = CountingCursor(rows(100))
+        CursorSeekable(rowCursor, mapper).toList()
+
+        CursorSeekable(cursor, mapper, 16, 8).toList()
+
+        Assert.assertEquals(100, rowCursor.seeks)
+        Assert.assertEquals(0, cursor.seeks)
+        Assert.assertEquals(1, cursor.counts)
+    }
+
+    @Test
+    fun windowed_repeatedReads_doNotMoveCursor() {
+        val seekable = CursorSeekable(cursor, mapper, 16, 8)
+        seekable.toList()
+        val moves = cursor.seeks + cursor.steps
+
+        // Read the items again in the back and forth order of a diff.
+        for (i in 0 until 50) {
+            Assert.assertEquals(i, seekable[i])
+            Assert.assertEquals(99 - i, seekable[99 - i])
+        }
+
+        Assert.assertEquals(moves, cursor.seeks + cursor.steps)
+    }
+
+    @Test
+    fun windowed_evictsLeastRecentlyUsedBlocks() {
+        val seekable = CursorSeekable(cursor, mapper, 10, 2)
+        seekable[0]
+        seekable[10]
+        seekable[0]
+        seekable[20]
+        val seeks = cursor.seeks
+
+        // Block 0 was used more recently than block 1, so only block 1 was evicted.
+        seekable[5]
+        Assert.assertEquals(seeks, cursor.seeks)
+        seekable[15]
+        Assert.assertEquals(seeks + 1, cursor.seeks)
+    }
+
+    @Test
+    fun windowed_cursorMovedBetweenRows_readsBlockCorrectly() {
+        var moved = false
+        // Moves the cursor after mapping row 3, as a row read by another thread while the block is filled does.
+        val movingMapper = Function<Cursor, Int> {
+            val value = it.getInt(0)
+            if (value == 3 && !moved) {
+                moved = true
+                it.moveToPosition(50)
+            }
+            value
+        }
+        val seekable = CursorSeekable(cursor, movingMapper, 16)
+
+        Assert.assertEquals((0 until 16).toList(), (0 until 16).map { seekable[it] })
+    }
+
+    private fun rows(count: Int): MatrixCursor {
+        val matrixCursor = MatrixCursor(arrayOf("value"))
+        for (i in 0 until count) {
+            matrixCursor.addRow(arrayOf<Any>(i))
+        }
+        return matrixCursor
+    }
+
+    private class CountingCursor(cursor: Cursor) : CursorWrapper(cursor) {
+        var seeks = 0
+        var steps = 0
+        var counts = 0
+
+        override fun moveToPosition(position: Int): Boolean {
+            seeks++
+            return super.moveToPosition(position)
+        }
+
+        override fun moveToNext(): Boolean {
+            steps++
+            return super.moveToNext()
+        }
+
+        override fun getCount(): Int {
+            counts++
+            return super.getCount()
+        }
+    }
+}
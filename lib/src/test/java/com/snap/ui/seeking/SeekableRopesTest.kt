@@ -0,0 +1,85 @@
+package com.snap.ui.seeking
+
+import org.junit.Assert
+import org.junit.Test
+
+class SeekableRopesTest {
+
+    @Test
+    fun concat_flattensNestedConcatenations() {
+        val nested = Seekables.concat(
+                Seekables.concat(Seekables.of(1), Seekables.of(2)),
+                Seekables.concat(Seekables.of(3), Seekables.concat(Seekables.of(4), Seekables.of(5)))
+        )
+
+        Assert.assertEquals(listOf(1, 2, 3, 4, 5), nested.toList())
+        Assert.assertEquals(1, (nested as ConcatSeekable<Int>).depth)
+        Assert.assertEquals(5, nested.leafCount)
+    }
+
+    @Test
+    fun concat_dropsEmptySeekables() {
+        val seekable = ListSeekable(listOf(1, 2))
+        Assert.assertSame(seekable, Seekables.concat(Seekables.empty(), seekable))
+        Assert.assertSame(seekable, Seekables.concat(seekable, Seekables.empty()))
+    }
+
+    @Test
+    fun concat_repeatedAppends_staysShallow() {
+        var seekable = Seekables.empty<Int>()
+        val expected = ArrayList<Int>()
+        for (page in 0 until 2000) {
+            val items = listOf(page * 2, page * 2 + 1)
+            seekable = Seekables.concat(seekable, Seekables.copyOf(items))
+            expected.addAll(items)
+        }
+
+        Assert.assertEquals(expected, seekable.toList())
+        // 2000 leaves fit in a balanced tree of depth 3, plus the allowed slack.
+        Assert.assertTrue((seekable as ConcatSeekable<Int>).depth <= 5)
+    }
+
+    @Test
+    fun splice_repeatedSplices_matchesList() {
+        var seekable: Seekable<Int> = Seekables.copyOf((0 until 100).toList())
+        val expected = (0 until 100).toMutableList()
+        for (i in 0 until 500) {
+            val position = (i * 37) % (expected.size + 1)
+            val items = listOf(-i, -i - 1000)
+            seekable = Seekables.splice(seekable, Seekables.copyOf(items), position)
+            expected.addAll(position, items)
+        }
+
+        Assert.assertEquals(expected.size, seekable.size())
+        Assert.assertEquals(expected, seekable.toList())
+        Assert.assertTrue((seekable as ConcatSeekable<Int>).depth <= 5)
+    }
+
+    @Test
+    fun splice_beyondContent_appends() {
+        val seekable = Seekables.splice(Seekables.copyOf(listOf(1, 2)), Seekables.of(3), 10)
+        Assert.assertEquals(listOf(1, 2, 3), seekable.toList())
+    }
+
+    @Test
+    fun slice_ofSlice_slicesSource() {
+        val source = Seekables.copyOf((0 until 10).toList())
+        val slice = SeekableRopes.slice(SeekableRopes.slice(source, 2, 8), 1, 4)
+
+        Assert.assertEquals(listOf(3, 4, 5), slice.toList())
+    }
+
+    @Test
+    fun map_ofMap_composesMappings() {
+        val source = Seekables.copyOf(listOf(1, 2, 3))
+        val mapped = Seekables.map(Seekables.map(source) { x, i -> x * 10 + i }) { x, i -> x + i }
+
+        Assert.assertEquals(listOf(10, 22, 34), mapped.toList())
+    }
+
+    @Test
+    fun reverse_ofReverse_returnsSource() {
+        val source = Seekables.copyOf(listOf(1, 2, 3))
+        Assert.assertSame(source, Seekables.reverse(Seekables.reverse(source)))
+    }
+}
@@ -0,0 +1,102 @@
+package com.snap.ui.util
+
+import org.junit.Assert
+import org.junit.Test
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+
+class DataIdMapperTest {
+
+    @Test
+    fun getStableId_handsOutSequentialIds() {
+        val subject = DataIdMapper()
+
+        Assert.assertEquals(1L, subject.getStableId("a"))
+        Assert.assertEquals(2L, subject.getStableId("b"))
+        Assert.assertEquals(1L, subject.getStableId("a"))
+    }
+
+    @Test
+    fun getStableId_withDerivedIds_derivesIdsFromKeys() {
+        val id = DataIdMapper.withDerivedIds().getStableId("story:1")
+
+        Assert.assertEquals(id, DataIdMapper.withDerivedIds().getStableId("story:1"))
+        Assert.assertEquals(StableIds.of("story:1"), id)
+        Assert.assertNotEquals(id, DataIdMapper.withDerivedIds().getStableId("story:2"))
+    }
+
+    @Test
+    fun of_fitsInIdBits() {
+        for (i in 0 until 1000) {
+            val id = StableIds.of(i.toLong(), "key:$i")
+            Assert.assertEquals(0L, id ushr StableIds.ID_BITS)
+            Assert.assertTrue(id > StableIds.next())
+        }
+    }
+
+    @Test
+    fun getStableId_separatesNamespaces() {
+        val subject = DataIdMapper()
+
+        Assert.assertNotEquals(subject.getStableId(1, "a"), subject.getStableId(2, "a"))
+        Assert.assertEquals(subject.getStableId(1, "a"), subject.getStableId(1, "a"))
+    }
+
+    @Test
+    fun getStableId_withSeed_handsOutSequentialIds() {
+        val subject = DataIdMapper(100L)
+
+        Assert.assertEquals(101L, subject.getStableId("a"))
+        Assert.assertEquals(102L, subject.getStableId("b"))
+        Assert.assertEquals(101L, subject.getStableId("a"))
+    }
+
+    @Test
+    fun getStableId_withSeed_keepsAllIds() {
+        val subject = DataIdMapper(0L)
+        val ids = (0 until 10000).map { subject.getStableId("key:$it") }
+
+        Assert.assertEquals(10000, subject.size())
+        Assert.assertEquals(ids, (0 until 10000).map { subject.getStableId("key:$it") })
+    }
+
+    @Test
+    fun getStableId_overMaxSize_dropsLeastRecentlyUsedKeys() {
+        val subject = DataIdMapper(4)
+        subject.getStableId("a")
+        subject.getStableId("b")
+        subject.getStableId("c")
+        subject.getStableId("a")
+        subject.getStableId("d")
+
+        // "b" went unused the longest, and was dropped.
+        Assert.assertEquals(3, subject.size())
+        // It gets its hash again when it comes back.
+        Assert.assertEquals(StableIds.of("b"), subject.getStableId("b"))
+        Assert.assertTrue(subject.size() <= 4)
+    }
+
+    @Test
+    fun getStableId_bounded_keepsIdsAcrossSegments() {
+        val subject = DataIdMapper(4096)
+        val ids = (0 until 2000).map { subject.getStableId(it.toLong(), "key") }
+
+        Assert.assertEquals(2000, ids.toSet().size)
+        Assert.assertEquals(ids, (0 until 2000).map { subject.getStableId(it.toLong(), "key") })
+    }
+
+    @Test
+    fun next_isUniqueAcrossThreads() {
+        val ids = Collections.synchronizedSet(HashSet<Long>())
+        val done = CountDownLatch(4)
+        repeat(4) {
+            Thread {
+                repeat(5000) { ids.add(StableIds.next()) }
+                done.countDown()
+            }.start()
+        }
+        done.await()
+
+        Assert.assertEquals(20000, ids.size)
+    }
+}